@@ -0,0 +1,68 @@
+package com.frameworkium.lite.common.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/** Thread-safe count, mean and maximum of a repeatedly timed operation. */
+public final class TimingStats {
+
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /** @param name what is being timed, used by {@link #toString()} */
+    public TimingStats(String name) {
+        this.name = name;
+    }
+
+    /** @param duration how long one operation took */
+    public void record(Duration duration) {
+        long nanos = duration.toNanos();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Runs and records the duration of the operation, even if it throws.
+     *
+     * @param operation the operation to time
+     * @return the result of the operation
+     */
+    public <T> T time(Supplier<T> operation) {
+        long start = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public Duration getTotal() {
+        return Duration.ofNanos(totalNanos.sum());
+    }
+
+    /** @return the mean duration, or {@link Duration#ZERO} if nothing was recorded */
+    public Duration getMean() {
+        long n = count.sum();
+        return n == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / n);
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(maxNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s: count=%d, mean=%dms, max=%dms",
+                name, getCount(), getMean().toMillis(), getMax().toMillis());
+    }
+}
@@ -17,6 +17,13 @@ public enum Property {
     // Capture
     CAPTURE_URL("captureURL"),
     CAPTURE_THREADS("capture.threads"),
+    CAPTURE_COLOURS("capture.colours"),
+    CAPTURE_MAX_WIDTH("capture.maxWidth"),
+    CAPTURE_PNG_COMPRESSION("capture.pngCompression"),
+    CAPTURE_GZIP("capture.gzip"),
+    CAPTURE_BACKLOG_MB("capture.backlogMb"),
+    CAPTURE_BACKLOG_POLICY("capture.backlogPolicy"),
+    CAPTURE_SPOOL_DIR("capture.spoolDir"),
     SUT_NAME("sutName"),
     SUT_VERSION("sutVersion"),
 
@@ -24,11 +31,48 @@ public enum Property {
     BROWSER("browser"),
     BROWSER_VERSION("browserVersion"),
     GRID_URL("gridURL"),
+    GRID_ADMISSION_CONTROL("grid.admissionControl"),
+    GRID_MAX_PENDING_SESSIONS("grid.maxPendingSessions"),
+    GRID_ADMISSION_TIMEOUT("grid.admissionTimeout"),
 
     MAXIMISE("maximise"),
 
     REUSE_BROWSER("reuseBrowser"),
+    POOL_MIN_IDLE("pool.minIdle"),
+    POOL_MAX_TOTAL("pool.maxTotal"),
+    POOL_BORROW_TIMEOUT("pool.borrowTimeout"),
+    POOL_MAX_IDLE_TIME("pool.maxIdleTime"),
+    POOL_VALIDATE_ON_BORROW("pool.validateOnBorrow"),
+    POOL_VALIDATION_INTERVAL("pool.validationInterval"),
+    POOL_VALIDATION_TIMEOUT("pool.validationTimeout"),
+    POOL_MAX_TESTS_PER_BROWSER("pool.maxTestsPerBrowser"),
+    POOL_MAX_BROWSER_AGE("pool.maxBrowserAge"),
+    POOL_MAX_BROWSER_MEMORY_MB("pool.maxBrowserMemoryMb"),
+    BROWSER_RESET("browserReset"),
+    BROWSER_RESET_CLEAR_CACHE("browserReset.clearCache"),
+    PREWARM_BROWSERS("prewarmBrowsers"),
+    TEARDOWN_THREADS("teardown.threads"),
+    TEARDOWN_MAX_PENDING("teardown.maxPending"),
+    LAUNCH_CONCURRENCY("launch.concurrency"),
+    LAUNCH_RATE_PER_MINUTE("launch.ratePerMinute"),
+    LAUNCH_BURST("launch.burst"),
+    USER_CONTEXTS("userContexts"),
+    LAZY_BROWSER("lazyBrowser"),
+    SHARED_DRIVER_SERVICE("sharedDriverService"),
+    BROWSER_DAEMON("browserDaemon"),
+    BROWSER_DAEMON_PORT("browserDaemon.port"),
+    BROWSER_DAEMON_LEASE_TIMEOUT("browserDaemon.leaseTimeout"),
+    CGROUP_ISOLATION("cgroup.isolation"),
+    CGROUP_PARENT("cgroup.parent"),
+    CGROUP_CPU_PERCENT("cgroup.cpuPercent"),
+    CGROUP_MEMORY_MB("cgroup.memoryMb"),
+    CDP_FAST_LANE("cdpFastLane"),
     HEADLESS("headless"),
+    PAGE_LOAD_STRATEGY("pageLoadStrategy"),
+    PERFORMANCE_PROFILE("performanceProfile"),
+    BLOCK_IMAGES("blockImages"),
+    DISK_CACHE_DIR("diskCacheDir"),
+    PROFILE_TEMPLATE("profileTemplate"),
     CUSTOM_BROWSER_IMPL("customBrowserImpl"),
 
     REMOTE_OTEL_TRACING("remotewebdriver.tracing");
@@ -104,4 +148,50 @@ public enum Property {
     public int getIntWithDefault(int defaultValue) {
         return isSpecified() ? Integer.parseInt(value) : defaultValue;
     }
+
+    /**
+     * A qualified property has the qualifier inserted after the first part
+     * of this property's key, e.g. {@code pool.chrome.maxTotal} for
+     * {@code pool.maxTotal} qualified by {@code chrome}.
+     *
+     * @param qualifier e.g. a browser name, or null for this property
+     * @return the value of the qualified property if set, else of this property
+     */
+    public String getQualifiedValue(String qualifier) {
+        if (qualifier != null) {
+            int dot = systemPropertyKey.indexOf('.');
+            String qualifiedKey = dot < 0
+                    ? qualifier + "." + systemPropertyKey
+                    : systemPropertyKey.substring(0, dot + 1)
+                            + qualifier
+                            + systemPropertyKey.substring(dot);
+            String qualifiedValue = retrieveValue(qualifiedKey);
+            if (StringUtils.isNotEmpty(qualifiedValue)) {
+                return qualifiedValue;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @param qualifier e.g. a browser name, or null for this property
+     * @return true if the qualified property, else this property, is "true"
+     * @see #getQualifiedValue(String)
+     */
+    public boolean getQualifiedBoolean(String qualifier) {
+        return Boolean.parseBoolean(getQualifiedValue(qualifier));
+    }
+
+    /**
+     * @param qualifier    e.g. a browser name, or null for this property
+     * @param defaultValue the value if neither property is set
+     * @return the qualified property, else this property, else the default
+     * @see #getQualifiedValue(String)
+     */
+    public int getQualifiedIntWithDefault(String qualifier, int defaultValue) {
+        String qualifiedValue = getQualifiedValue(qualifier);
+        return StringUtils.isNotEmpty(qualifiedValue)
+                ? Integer.parseInt(qualifiedValue)
+                : defaultValue;
+    }
 }
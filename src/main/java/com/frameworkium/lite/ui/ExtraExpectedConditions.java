@@ -2,6 +2,7 @@ package com.frameworkium.lite.ui;
 
 import com.frameworkium.lite.htmlelements.element.HtmlElement;
 import com.frameworkium.lite.htmlelements.element.TypifiedElement;
+import com.frameworkium.lite.ui.driver.FastLane;
 
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedCondition;
@@ -178,10 +179,26 @@ public class ExtraExpectedConditions {
                 "the document ready state to equal 'complete'");
     }
 
+    /**
+     * Wait for the document to be parsed, i.e. the ready state to be
+     * 'interactive' or 'complete', without waiting for images, stylesheets
+     * and other sub-resources to load.
+     *
+     * @return a {@link ExpectedCondition} which returns <strong>true</strong>
+     *         once the document has been parsed
+     */
+    public static ExpectedCondition<Boolean> documentInteractive() {
+
+        return javascriptExpectedCondition(
+                "return document.readyState != 'loading';",
+                "the document ready state to be 'interactive' or 'complete'");
+    }
+
     private static ExpectedCondition<Boolean> javascriptExpectedCondition(
             String query, String message) {
         return expectedCondition(
-                driver -> (Boolean) ((JavascriptExecutor) driver).executeScript(query), message);
+                driver -> (Boolean) FastLane.javascriptExecutor(driver).executeScript(query),
+                message);
     }
 
     private static <T> ExpectedCondition<T> expectedCondition(
@@ -3,9 +3,15 @@ package com.frameworkium.lite.ui;
 import static java.time.temporal.ChronoUnit.SECONDS;
 
 import com.frameworkium.lite.common.properties.Property;
+import com.frameworkium.lite.ui.annotations.BrowserType;
 import com.frameworkium.lite.ui.browsers.UserAgent;
 import com.frameworkium.lite.ui.capture.ScreenshotCapture;
+import com.frameworkium.lite.ui.context.TestContext;
+import com.frameworkium.lite.ui.driver.Driver;
 import com.frameworkium.lite.ui.driver.DriverSetup;
+import com.frameworkium.lite.ui.driver.LazyWebDriver;
+import com.frameworkium.lite.ui.driver.drivers.GridAdmission;
+import com.frameworkium.lite.ui.driver.drivers.SharedDriverServices;
 import com.frameworkium.lite.ui.driver.lifecycle.*;
 
 import org.apache.commons.lang3.StringUtils;
@@ -18,38 +24,80 @@ import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 /**
  * Handles all UI test related state and life cycle.
- * Contains a ThreadLocal instance of itself.
+ * An instance is held by each {@link TestContext}.
  */
 public class UITestLifecycle {
 
     private static final Duration DEFAULT_TIMEOUT = Duration.of(10, SECONDS);
 
-    private static final ThreadLocal<UITestLifecycle> THREAD_LOCAL_INSTANCE =
-            ThreadLocal.withInitial(UITestLifecycle::new);
+    private static final TestContext.Key<UITestLifecycle> CONTEXT_KEY =
+            new TestContext.Key<>("UI test lifecycle");
 
-    private static DriverLifecycle driverLifecycle;
+    private static KeyedDriverLifecycle driverLifecycle;
+    private static DriverLaunchScheduler launchScheduler;
     private static String userAgent;
 
     private ScreenshotCapture capture;
     private Wait<WebDriver> wait;
 
-    /** @return a ThreadLocal instance of {@link UITestLifecycle} */
+    private String testName;
+    private DriverSetup.Browser browser;
+    private String affinity;
+    private WebDriver lazyWebDriver;
+    /** Cleared after the test, so its lazy {@link WebDriver} cannot acquire a browser. */
+    private AtomicBoolean lazyWebDriverUsable;
+
+    private boolean browserAcquired;
+
+    /** @return the {@link UITestLifecycle} of the current {@link TestContext} */
     public static UITestLifecycle get() {
-        return THREAD_LOCAL_INSTANCE.get();
+        return TestContext.current().computeIfAbsent(CONTEXT_KEY, UITestLifecycle::new);
     }
 
-    /** Run this before the test suite to initialise a pool of drivers. */
+    /**
+     * Run this before the test suite to initialise a pool of drivers for the
+     * browser set by the {@code browser} property. Pools for other browsers,
+     * requested using {@link BrowserType}, are initialised on first use.
+     */
     public static void beforeSuite() {
-        if (Property.REUSE_BROWSER.getBoolean()) {
-            driverLifecycle = new MultiUseDriverLifecycle(
-                    DriverSetup::instantiateDriver, Property.THREADS.getIntWithDefault(1));
+        launchScheduler = DriverLaunchScheduler.fromProperties();
+        beforeSuite(new KeyedDriverLifecycle(
+                UITestLifecycle::createDriverLifecycle, DriverSetup.getBrowserTypeFromProperty()));
+    }
+
+    /** @param keyedDriverLifecycle the lifecycle of the browsers used by tests */
+    static void beforeSuite(KeyedDriverLifecycle keyedDriverLifecycle) {
+        driverLifecycle = keyedDriverLifecycle;
+        driverLifecycle.initDriverPool();
+    }
+
+    private static DriverLifecycle createDriverLifecycle(DriverSetup.Browser browser) {
+        Supplier<Driver> driverSupplier = () -> DriverSetup.instantiateDriver(browser);
+        if (Property.BROWSER_DAEMON.isSpecified()) {
+            return new DaemonDriverLifecycle(Property.BROWSER_DAEMON.getValue(), browser);
+        } else if (Property.USER_CONTEXTS.getBoolean()) {
+            return new UserContextDriverLifecycle(driverSupplier);
+        } else if (Property.REUSE_BROWSER.getBoolean()) {
+            return new MultiUseDriverLifecycle(
+                    driverSupplier,
+                    DriverPoolConfig.fromProperties(browser),
+                    DriverTeardownExecutor.fromProperties(),
+                    launchScheduler);
         } else {
-            driverLifecycle = new SingleUseDriverLifecycle(DriverSetup::instantiateDriver);
+            // pre-warm the configured number of browsers for each thread
+            int prewarmCount = Property.PREWARM_BROWSERS.getIntWithDefault(0)
+                    * Property.THREADS.getIntWithDefault(1);
+            return new SingleUseDriverLifecycle(
+                    driverSupplier,
+                    prewarmCount,
+                    DriverTeardownExecutor.fromProperties(),
+                    launchScheduler);
         }
-        driverLifecycle.initDriverPool();
     }
 
     /**
@@ -57,27 +105,102 @@ public class UITestLifecycle {
      * @see #beforeTestMethod(String)
      */
     public void beforeTestMethod(Method testMethod) {
-        beforeTestMethod(getTestNameForCapture(testMethod));
+        beforeTestMethod(
+                getTestNameForCapture(testMethod),
+                getBrowserType(testMethod),
+                testMethod.getDeclaringClass().getName());
+    }
+
+    /** @return the browser requested by {@link BrowserType} on the method or its class */
+    private static DriverSetup.Browser getBrowserType(Method testMethod) {
+        BrowserType browserType = testMethod.getAnnotation(BrowserType.class);
+        if (browserType == null) {
+            browserType = testMethod.getDeclaringClass().getAnnotation(BrowserType.class);
+        }
+        return browserType == null ? DriverSetup.getBrowserTypeFromProperty() : browserType.value();
+    }
+
+    /**
+     * Runs {@link #beforeTestMethod(String, DriverSetup.Browser)} using the
+     * browser set by the {@code browser} property.
+     *
+     * @param testName the test name for Capture
+     */
+    public void beforeTestMethod(String testName) {
+        beforeTestMethod(testName, DriverSetup.getBrowserTypeFromProperty());
     }
 
     /**
      * Run this before each test method to initialise:
      * the browser, wait, capture, and user agent.
      *
+     * <p>If {@code lazyBrowser=true}, only the wait is initialised.
+     * {@link #getWebDriver()} returns a {@link WebDriver} which initialises
+     * the rest when first used, so tests which do not use the browser, e.g.
+     * those failing in setup, do not start or borrow one.
+     *
      * <p>This is public for times when the testMethod does not contain the
      * required test name e.g. using data providers for BDD.
      *
      * @param testName the test name for Capture
+     * @param browser  the type of browser to run the test in
      */
-    public void beforeTestMethod(String testName) {
+    public void beforeTestMethod(String testName, DriverSetup.Browser browser) {
+        beforeTestMethod(testName, browser, null);
+    }
+
+    /**
+     * As {@link #beforeTestMethod(String, DriverSetup.Browser)}, but pooled
+     * browsers which last ran a test with the same affinity are preferred, so
+     * e.g. tests in the same class, which likely use the same application,
+     * reuse its warm caches.
+     *
+     * @param testName the test name for Capture
+     * @param browser  the type of browser to run the test in
+     * @param affinity the hint, e.g. the test class or base URL, or null for none
+     */
+    public void beforeTestMethod(String testName, DriverSetup.Browser browser, String affinity) {
+        beforeTestMethod(testName, browser, affinity, Property.LAZY_BROWSER.getBoolean());
+    }
+
+    void beforeTestMethod(
+            String testName, DriverSetup.Browser browser, String affinity, boolean lazyBrowser) {
+        this.testName = testName;
+        this.browser = browser;
+        this.affinity = affinity;
+        this.browserAcquired = false;
+        this.capture = null;
+        if (lazyBrowser) {
+            var usable = new AtomicBoolean(true);
+            lazyWebDriverUsable = usable;
+            lazyWebDriver = LazyWebDriver.create(() -> {
+                if (!usable.get()) {
+                    // the browser would never be torn down
+                    throw new IllegalStateException(
+                            "Browser of test '" + testName + "' used after the test finished");
+                }
+                return acquireBrowser();
+            });
+            wait = newWaitWithTimeout(DEFAULT_TIMEOUT);
+        } else {
+            lazyWebDriver = null;
+            acquireBrowser();
+            wait = newWaitWithTimeout(DEFAULT_TIMEOUT);
+        }
+    }
+
+    /** @return the browser for the current test, initialising it, if required */
+    private WebDriver acquireBrowser() {
+        if (browserAcquired) {
+            return driverLifecycle.getWebDriver();
+        }
         try {
-            driverLifecycle.initBrowserBeforeTest();
+            driverLifecycle.initBrowserBeforeTest(browser, affinity);
         } catch (WebDriverException | NullPointerException ex) {
             reinitialiseCurrentDriver();
-            driverLifecycle.initBrowserBeforeTest();
+            driverLifecycle.initBrowserBeforeTest(browser, affinity);
         }
-
-        wait = newWaitWithTimeout(DEFAULT_TIMEOUT);
+        browserAcquired = true;
 
         // Capture reads the userAgent, so ensure this is set beforehand
         updateUserAgent();
@@ -85,6 +208,7 @@ public class UITestLifecycle {
         if (ScreenshotCapture.isRequired()) {
             capture = new ScreenshotCapture(testName);
         }
+        return driverLifecycle.getWebDriver();
     }
 
     private static void updateUserAgent() {
@@ -98,9 +222,17 @@ public class UITestLifecycle {
         return StringUtils.abbreviate(methodName, 77);
     }
 
-    /** Run after each test method to clear or tear down the browser */
+    /** Run after each test method to clear or tear down the browser, if used */
     public void afterTestMethod() {
-        driverLifecycle.tearDownDriver();
+        if (browserAcquired) {
+            driverLifecycle.tearDownDriver();
+        }
+        browserAcquired = false;
+        lazyWebDriver = null;
+        if (lazyWebDriverUsable != null) {
+            lazyWebDriverUsable.set(false);
+            lazyWebDriverUsable = null;
+        }
     }
 
     /**
@@ -109,8 +241,10 @@ public class UITestLifecycle {
      */
     public void afterTestSuite() {
         driverLifecycle.tearDownDriverPool();
+        SharedDriverServices.stopAll();
+        GridAdmission.logStatistics();
         ScreenshotCapture.processRemainingBacklog();
-        THREAD_LOCAL_INSTANCE.remove();
+        TestContext.current().remove(CONTEXT_KEY);
     }
 
     /**
@@ -133,10 +267,28 @@ public class UITestLifecycle {
                 .ignoring(StaleElementReferenceException.class);
     }
 
+    /**
+     * @return the browser for the current test, which in lazy mode is only
+     *         started, or borrowed, when first used
+     * @see #isBrowserAcquired()
+     */
     public WebDriver getWebDriver() {
+        if (lazyWebDriver != null && !browserAcquired) {
+            return lazyWebDriver;
+        }
         return driverLifecycle.getWebDriver();
     }
 
+    /**
+     * Use this to avoid starting a browser, in lazy mode, just to e.g. take
+     * a screenshot of a test which has not used it.
+     *
+     * @return true if the current test has a browser
+     */
+    public boolean isBrowserAcquired() {
+        return browserAcquired && driverLifecycle.getWebDriver() != null;
+    }
+
     public ScreenshotCapture getCapture() {
         return capture;
     }
@@ -0,0 +1,21 @@
+package com.frameworkium.lite.ui.annotations;
+
+import com.frameworkium.lite.ui.driver.DriverSetup;
+
+import java.lang.annotation.*;
+
+/**
+ * Runs a test method, or every test in a class, in the given browser rather
+ * than the browser set by the {@code browser} property. An annotation on the
+ * method takes precedence over one on the class.
+ *
+ * <p>Each browser type gets its own pool of browsers, all in the same JVM.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Inherited
+public @interface BrowserType {
+
+    /** The browser to run the test in. */
+    DriverSetup.Browser value();
+}
@@ -1,5 +1,7 @@
 package com.frameworkium.lite.ui.capture;
 
+import com.frameworkium.lite.ui.driver.FastLane;
+
 import org.openqa.selenium.*;
 
 public class ElementHighlighter {
@@ -11,8 +13,12 @@ public class ElementHighlighter {
     private final JavascriptExecutor js;
     private WebElement previousElem;
 
+    /**
+     * @param driver the browser, whose undecorated driver highlights elements
+     *               if {@code cdpFastLane=true}, see {@link FastLane}
+     */
     public ElementHighlighter(WebDriver driver) {
-        js = (JavascriptExecutor) driver;
+        js = FastLane.javascriptExecutor(driver);
     }
 
     ElementHighlighter(JavascriptExecutor javascriptExecutor) {
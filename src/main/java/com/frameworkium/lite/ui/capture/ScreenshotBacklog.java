@@ -0,0 +1,228 @@
+package com.frameworkium.lite.ui.capture;
+
+import static com.frameworkium.lite.common.properties.Property.CAPTURE_BACKLOG_MB;
+import static com.frameworkium.lite.common.properties.Property.CAPTURE_BACKLOG_POLICY;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Limits the memory used by screenshots waiting to be compressed and sent to
+ * Capture to {@code capture.backlogMb}, default 256MB, counted in bytes of
+ * screenshot rather than number of screenshots.
+ *
+ * <p>When a screenshot does not fit, {@code capture.backlogPolicy} decides:
+ * <ul>
+ * <li>{@link Policy#BLOCK}, the default, waits for space, slowing the test
+ * <li>{@link Policy#DROP_INTERMEDIATE} drops it, unless it is a final, i.e.
+ *     pass, fail or skip, screenshot, which waits for space
+ * <li>{@link Policy#SPILL} writes it to a temporary file, which is only read
+ *     back once its sender is ready to send it
+ * </ul>
+ *
+ * <p>Waits are limited to {@link #MAX_BLOCK}, after which intermediate
+ * screenshots are dropped and final screenshots are accepted regardless.
+ */
+public final class ScreenshotBacklog {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    static final Duration MAX_BLOCK = Duration.ofSeconds(60);
+
+    /** What to do with a screenshot which does not fit in the backlog. */
+    public enum Policy {
+        BLOCK,
+        DROP_INTERMEDIATE,
+        SPILL
+    }
+
+    /** What happened to a screenshot offered to the backlog. */
+    public enum Admission {
+        /** Held in memory, release its bytes once sent. */
+        ADMITTED,
+        /** Not sent. */
+        DROPPED,
+        /** Write it with {@link #spill(byte[])}. */
+        SPILLED
+    }
+
+    private final long maxBytes;
+    private final Policy policy;
+    private final Duration maxBlock;
+
+    private long pendingBytes;
+    private Path spillDirectory;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+
+    /**
+     * @param maxBytes the most bytes of screenshot to hold in memory
+     * @param policy   what to do with screenshots which do not fit
+     * @param maxBlock the longest to wait for space
+     */
+    public ScreenshotBacklog(long maxBytes, Policy policy, Duration maxBlock) {
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.maxBlock = maxBlock;
+    }
+
+    /** @return the backlog configured by {@code capture.backlogMb} and {@code capture.backlogPolicy} */
+    public static ScreenshotBacklog fromProperties() {
+        long maxBytes = CAPTURE_BACKLOG_MB.isSpecified()
+                ? CAPTURE_BACKLOG_MB.getIntWithDefault(0) * 1024L * 1024
+                : DEFAULT_MAX_BYTES;
+        Policy policy = CAPTURE_BACKLOG_POLICY.isSpecified()
+                ? Policy.valueOf(CAPTURE_BACKLOG_POLICY.getValue().toUpperCase())
+                : Policy.BLOCK;
+        return new ScreenshotBacklog(maxBytes, policy, MAX_BLOCK);
+    }
+
+    /**
+     * @param bytes   the size of the screenshot
+     * @param isFinal whether it is a pass, fail or skip screenshot
+     * @return what to do with the screenshot
+     */
+    public synchronized Admission admit(long bytes, boolean isFinal) {
+        if (fits(bytes)) {
+            return admitNow(bytes);
+        }
+        if (policy == Policy.SPILL) {
+            spilled.increment();
+            return Admission.SPILLED;
+        }
+        if (policy == Policy.DROP_INTERMEDIATE && !isFinal) {
+            dropped.increment();
+            return Admission.DROPPED;
+        }
+        blocked.increment();
+        long deadline = System.nanoTime() + maxBlock.toNanos();
+        while (!fits(bytes)) {
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                if (isFinal) {
+                    logger.warn(
+                            "Screenshot backlog full for {}, accepting final screenshot", maxBlock);
+                    return admitNow(bytes);
+                }
+                logger.warn("Screenshot backlog full for {}, dropping screenshot", maxBlock);
+                dropped.increment();
+                return Admission.DROPPED;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+                return Admission.DROPPED;
+            }
+        }
+        return admitNow(bytes);
+    }
+
+    /** A screenshot larger than the whole budget is accepted when nothing else is pending. */
+    private boolean fits(long bytes) {
+        return pendingBytes == 0 || pendingBytes + bytes <= maxBytes;
+    }
+
+    private Admission admitNow(long bytes) {
+        pendingBytes += bytes;
+        admitted.increment();
+        return Admission.ADMITTED;
+    }
+
+    /** @param bytes the size of an {@link Admission#ADMITTED} screenshot which has been sent or discarded */
+    public synchronized void release(long bytes) {
+        pendingBytes -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * @param screenshot an {@link Admission#SPILLED} screenshot
+     * @return the file holding it, to be read once by {@link #readSpilled(Path)}
+     * @throws IOException if it cannot be written
+     */
+    public Path spill(byte[] screenshot) throws IOException {
+        Path file = Files.createTempFile(spillDirectory(), "screenshot", ".png");
+        Files.write(file, screenshot);
+        return file;
+    }
+
+    private synchronized Path spillDirectory() throws IOException {
+        if (spillDirectory == null) {
+            spillDirectory = Files.createTempDirectory("frameworkium-screenshots");
+        }
+        return spillDirectory;
+    }
+
+    /**
+     * @param file a file from {@link #spill(byte[])}, which is deleted
+     * @return the screenshot
+     * @throws IOException if it cannot be read
+     */
+    public byte[] readSpilled(Path file) throws IOException {
+        try {
+            return Files.readAllBytes(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /** Deletes the spill directory, including any screenshots which were never read back. */
+    public synchronized void deleteSpilled() {
+        if (spillDirectory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(spillDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.debug("Unable to delete {}", file, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Unable to delete spilled screenshots in {}", spillDirectory, e);
+        }
+        spillDirectory = null;
+    }
+
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getSpilled() {
+        return spilled.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Screenshot backlog: admitted=%d, blocked=%d, dropped=%d, spilled=%d",
+                getAdmitted(), getBlocked(), getDropped(), getSpilled());
+    }
+}
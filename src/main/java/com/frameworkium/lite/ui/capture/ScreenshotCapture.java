@@ -4,9 +4,12 @@ import static com.frameworkium.lite.common.properties.Property.*;
 
 import static org.apache.http.HttpStatus.SC_CREATED;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.frameworkium.lite.ui.capture.model.Command;
 import com.frameworkium.lite.ui.capture.model.message.CreateExecution;
 import com.frameworkium.lite.ui.capture.model.message.CreateScreenshot;
+import com.frameworkium.lite.ui.driver.FastLane;
 
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
@@ -14,30 +17,33 @@ import io.restassured.specification.RequestSpecification;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.openqa.selenium.OutputType;
-import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /** Takes and sends screenshots to "Capture" asynchronously. */
 public class ScreenshotCapture {
 
     private static final Logger logger = LogManager.getLogger();
 
-    private static final boolean isConvertAvailable = isConvertAvailable();
-
+    /**
+     * @return true if ImageMagick's {@code convert} can be run
+     * @deprecated screenshots are now compressed in the JVM by {@link ScreenshotCompressor}
+     */
+    @Deprecated
     public static boolean isConvertAvailable() {
         try {
             int exitCode = Runtime.getRuntime().exec("convert -version").waitFor();
@@ -62,6 +68,30 @@ public class ScreenshotCapture {
     private static final ExecutorService compressScreenshotExecutor =
             Executors.newFixedThreadPool(THREADS.getIntWithDefault(4));
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final String SCREENSHOT_FIELD = "screenshotBase64";
+
+    private static final ScreenshotCompressor compressor = ScreenshotCompressor.fromProperties();
+
+    /** If {@code capture.spoolDir} is set, messages are spooled to disk before being queued. */
+    private static final ScreenshotSpool spool =
+            ScreenshotSpool.fromProperties().orElse(null);
+
+    static {
+        if (spool != null && isRequired()) {
+            spool.drainPreviousRuns(ScreenshotCapture::sendSpooledMessage);
+        }
+    }
+
+    /** How long to wait for sends in flight at the end of the suite, if spooling. */
+    private static final Duration IN_FLIGHT_TIMEOUT = Duration.ofSeconds(10);
+
+    /** Set at the end of the suite, if spooling, so queued messages are left in the spool. */
+    private static volatile boolean stopping = false;
+
+    /** Bounds the bytes of screenshots waiting to be compressed and sent. */
+    private static final ScreenshotBacklog backlog = ScreenshotBacklog.fromProperties();
+
     private final String testID;
     private final String executionID;
 
@@ -77,6 +107,12 @@ public class ScreenshotCapture {
         logger.debug("Capture executionID={}", executionID);
     }
 
+    /** For an execution which has already been created. */
+    ScreenshotCapture(String testID, String executionID) {
+        this.testID = testID;
+        this.executionID = executionID;
+    }
+
     private String createExecution(CreateExecution createExecution) {
         try {
             return getRequestSpec()
@@ -132,92 +168,188 @@ public class ScreenshotCapture {
             return;
         }
 
-        finalScreenshotSent = FINAL_STATES.contains(command.action);
+        boolean isFinal = FINAL_STATES.contains(command.action);
+        finalScreenshotSent = isFinal;
 
-        // Take screenshot and other info from driver
-        File screenshotFile = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-        screenshotFile.deleteOnExit();
+        // Take screenshot and other info from driver, keeping the screenshot in memory
+        byte[] screenshot = FastLane.screenshot(driver);
         String currentURL = driver.getCurrentUrl();
 
-        // Compress it on a separate thread
-        Future<String> future =
-                compressScreenshotExecutor.submit(() -> getBase64Screenshot(screenshotFile));
+        ScreenshotBacklog.Admission admission = backlog.admit(screenshot.length, isFinal);
+        if (admission == ScreenshotBacklog.Admission.DROPPED) {
+            logger.debug("Screenshot backlog full, dropping {} screenshot", command.action);
+            return;
+        }
+
+        // Spool it, uncompressed, before it is queued, so it is kept if the JVM dies
+        ScreenshotSpool.Record spooled = spool(
+                new CreateScreenshot(executionID, command, currentURL, errorMessage, screenshot));
+
+        // Compress it on a separate thread, once it fits in the backlog
+        long reservedBytes;
+        Callable<byte[]> body;
+        if (admission == ScreenshotBacklog.Admission.SPILLED) {
+            // only read back, and compressed, once its sender is ready to send it,
+            // so at most one spilled screenshot per sender is in memory
+            reservedBytes = 0;
+            if (spooled != null) {
+                body = () -> compressMessage(spool.read(spooled));
+            } else {
+                Path spilled;
+                try {
+                    spilled = backlog.spill(screenshot);
+                } catch (IOException e) {
+                    logger.warn("Failed to spill screenshot to disk", e);
+                    return;
+                }
+                body = () -> compressedBody(
+                        command, currentURL, errorMessage, backlog.readSpilled(spilled));
+            }
+        } else {
+            reservedBytes = screenshot.length;
+            Future<byte[]> future = compressScreenshotExecutor.submit(() -> stopping
+                    ? null
+                    : compressedBody(command, currentURL, errorMessage, screenshot));
+            body = future::get;
+        }
 
         // Send it to capture on a separate single thread
         // Hashing the execution ID so ensure they are sent sequentially for each execution
         int index = Math.abs(executionID.hashCode()) % sendScreenshotExecutors.size();
         sendScreenshotExecutors.get(index).execute(() -> {
             try {
-                var createScreenshotMessage = new CreateScreenshot(
-                        executionID, command, currentURL, errorMessage, future.get());
-                sendScreenshot(createScreenshotMessage);
+                byte[] message = stopping ? null : body.call();
+                if (message == null) {
+                    // left in the spool
+                    return;
+                }
+                if (postScreenshot(message)) {
+                    if (spooled != null) {
+                        spool.acknowledge(spooled);
+                    }
+                } else {
+                    logger.warn("Failed sending screenshot to Capture for {}", testID);
+                }
             } catch (Exception e) {
                 logger.warn(e);
+            } finally {
+                backlog.release(reservedBytes);
             }
         });
     }
 
-    private String getBase64Screenshot(File imageFile) throws IOException {
-        Path outputFile = null;
+    /** @return the record of the uncompressed message, or null if not spooled */
+    private static ScreenshotSpool.Record spool(CreateScreenshot createScreenshotMessage) {
+        if (spool == null) {
+            return null;
+        }
         try {
-            if (!isConvertAvailable) {
-                return Base64.getEncoder().encodeToString(Files.readAllBytes(imageFile.toPath()));
-            }
+            return spool.append(serialise(createScreenshotMessage, false));
+        } catch (IOException e) {
+            logger.warn("Failed to spool screenshot", e);
+            return null;
+        }
+    }
+
+    /** @return the message, with the screenshot compressed, ready to send */
+    private byte[] compressedBody(
+            Command command, String currentURL, String errorMessage, byte[] screenshot)
+            throws IOException {
+        var createScreenshotMessage = new CreateScreenshot(
+                executionID, command, currentURL, errorMessage, compressScreenshot(screenshot));
+        return serialise(createScreenshotMessage, CAPTURE_GZIP.getBoolean());
+    }
 
-            outputFile = Files.createTempFile("screenshot", ".png");
-            outputFile.toFile().deleteOnExit();
-            limitColoursToCompressImage(imageFile, outputFile);
-            return Base64.getEncoder().encodeToString(Files.readAllBytes(outputFile));
+    /**
+     * @param spooledMessage an uncompressed message from the spool
+     * @return the message, with the screenshot compressed, ready to send
+     */
+    static byte[] compressMessage(byte[] spooledMessage) throws IOException {
+        var message = (ObjectNode) OBJECT_MAPPER.readTree(spooledMessage);
+        byte[] screenshot = message.get(SCREENSHOT_FIELD).binaryValue();
+        message.put(SCREENSHOT_FIELD, compressScreenshot(screenshot));
+        return writeJson(message, CAPTURE_GZIP.getBoolean());
+    }
+
+    /**
+     * Compresses and sends a message left in the spool.
+     *
+     * @param spooledMessage an uncompressed message from the spool
+     * @return true if Capture accepted the screenshot
+     */
+    static boolean sendSpooledMessage(byte[] spooledMessage) {
+        try {
+            return postScreenshot(compressMessage(spooledMessage));
         } catch (IOException e) {
-            logger.warn("Failed to reduce palette size of screenshot", e);
-            return Base64.getEncoder().encodeToString(Files.readAllBytes(imageFile.toPath()));
-        } finally {
-            try {
-                Files.delete(imageFile.toPath());
-                if (outputFile != null) {
-                    Files.delete(outputFile.toAbsolutePath());
-                }
-            } catch (IOException e) {
-                logger.warn("Failed to delete temporary screenshot files", e);
-            }
+            logger.warn("Unable to read spooled screenshot", e);
+            return false;
         }
     }
 
-    private static void limitColoursToCompressImage(File imageFile, Path outputFile) {
+    private static byte[] compressScreenshot(byte[] screenshot) {
         try {
-            String outputPath = outputFile.toAbsolutePath().toString();
-            new ProcessBuilder(
-                            "convert",
-                            imageFile.getAbsolutePath(),
-                            "+dither",
-                            "-colors",
-                            "128",
-                            outputPath)
-                    .start()
-                    .waitFor(30, TimeUnit.SECONDS);
-        } catch (IOException | InterruptedException e) {
-            logger.error("Failed to reduce palette size of screenshot", e);
+            return compressor.compress(screenshot);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to compress screenshot", e);
+            return screenshot;
+        }
+    }
+
+    /**
+     * Serialises the message to JSON, writing the screenshot as base64
+     * straight from its bytes, and gzips it if {@code capture.gzip=true}.
+     */
+    static byte[] serialise(CreateScreenshot createScreenshotMessage, boolean gzip)
+            throws IOException {
+        return writeJson(createScreenshotMessage, gzip);
+    }
+
+    private static byte[] writeJson(Object message, boolean gzip) throws IOException {
+        var body = new ByteArrayOutputStream();
+        try (OutputStream output = gzip ? new GZIPOutputStream(body) : body) {
+            OBJECT_MAPPER.writeValue(output, message);
         }
+        return body.toByteArray();
     }
 
-    private void sendScreenshot(CreateScreenshot createScreenshotMessage) {
+    /**
+     * @param body a message from {@link #serialise(CreateScreenshot, boolean)}
+     * @return true if Capture accepted the screenshot
+     */
+    static boolean postScreenshot(byte[] body) {
         try {
-            getRequestSpec()
-                    .body(createScreenshotMessage)
+            RequestSpecification request =
+                    RestAssured.given().relaxedHTTPSValidation().contentType(ContentType.JSON);
+            if (isGzipped(body)) {
+                request.header("Content-Encoding", "gzip");
+            }
+            request.body(body)
                     .when()
                     .post(CaptureEndpoint.SCREENSHOT.getUrl())
                     .then()
                     .log()
                     .ifError()
                     .statusCode(SC_CREATED);
+            return true;
         } catch (Throwable t) {
-            logger.warn("Failed sending screenshot to Capture for {}", testID);
             logger.debug(t);
+            return false;
         }
     }
 
+    private static boolean isGzipped(byte[] body) {
+        return body.length > 1
+                && body[0] == (byte) GZIPInputStream.GZIP_MAGIC
+                && body[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
     /**
      * Waits up to 2 minutes to send any remaining Screenshot messages.
+     *
+     * <p>If {@code capture.spoolDir} is set, every message is already
+     * spooled, so only waits up to 10 seconds for sends in flight. Those not
+     * yet sent are left in the spool, for the next run, or
+     * {@link ScreenshotSpool#main(String[])}, to upload.
      */
     public static void processRemainingBacklog() {
 
@@ -227,6 +359,12 @@ public class ScreenshotCapture {
             return;
         }
 
+        logger.info("{}", compressor);
+        logger.info("{}", backlog);
+        if (spool != null) {
+            spoolRemainingBacklog();
+            return;
+        }
         logger.info("Processing remaining Screenshot Capture backlog...");
         var totalRemainingJobs = new AtomicInteger(0);
         var terminationFutures = sendScreenshotExecutors.stream()
@@ -249,10 +387,35 @@ public class ScreenshotCapture {
         } catch (Exception e) {
             logger.error("CompletableFuture timed out.");
         }
+        backlog.deleteSpilled();
         if (totalRemainingJobs.get() > 0) {
             logger.error("Shutdown timed out. {} screenshots not sent.", totalRemainingJobs.get());
         } else {
             logger.info("Finished processing backlog.");
         }
     }
+
+    private static void spoolRemainingBacklog() {
+        // stop taking queued messages, leaving them in the spool, but let sends in flight finish
+        stopping = true;
+        compressScreenshotExecutor.shutdown();
+        long deadline = System.nanoTime() + IN_FLIGHT_TIMEOUT.toNanos();
+        boolean finished = true;
+        try {
+            for (ExecutorService executor : sendScreenshotExecutors) {
+                finished &= executor.awaitTermination(
+                        Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        spool.close();
+        if (finished) {
+            backlog.deleteSpilled();
+        } else {
+            logger.warn("Screenshots still being sent after {}.", IN_FLIGHT_TIMEOUT);
+        }
+        logger.info("{} unsent screenshots left in the spool.", spool.getUnacknowledged());
+    }
 }
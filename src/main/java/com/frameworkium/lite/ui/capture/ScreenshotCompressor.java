@@ -0,0 +1,309 @@
+package com.frameworkium.lite.ui.capture;
+
+import static com.frameworkium.lite.common.properties.Property.*;
+
+import com.frameworkium.lite.common.metrics.TimingStats;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Shrinks PNG screenshots before they are sent to Capture, in the JVM, by
+ * reducing them to a palette of at most {@code capture.colours} colours,
+ * default 128, without dithering, then re-encoding them as indexed PNGs.
+ *
+ * <p>The palette is chosen by median cut: starting from one box containing
+ * every colour, the box with the widest range of colours is repeatedly split
+ * at the median of its widest channel, and each box becomes the average of
+ * its colours. Colours are first reduced to 5 bits per channel.
+ *
+ * <p>Screenshots wider than {@code capture.maxWidth} pixels are scaled down,
+ * and {@code capture.pngCompression} sets the deflate level from 0 to 9,
+ * default 6. If compression does not make a screenshot smaller, the original
+ * is used. Images are decoded and encoded in memory, never using temporary files.
+ */
+public final class ScreenshotCompressor {
+
+    static final int DEFAULT_COLOURS = 128;
+    static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    private static final int BITS_PER_CHANNEL = 5;
+    private static final int CHANNEL_LEVELS = 1 << BITS_PER_CHANNEL;
+
+    private final int colours;
+    private final int maxWidth;
+    private final int compressionLevel;
+
+    private final TimingStats timings = new TimingStats("Screenshot compression");
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * @param colours          the maximum number of colours, from 2 to 256
+     * @param maxWidth         the width above which screenshots are scaled
+     *                         down, 0 for no limit
+     * @param compressionLevel the PNG deflate level, from 0 to 9
+     * @throws IllegalArgumentException if any are out of range
+     */
+    public ScreenshotCompressor(int colours, int maxWidth, int compressionLevel) {
+        if (colours < 2
+                || colours > 256
+                || maxWidth < 0
+                || compressionLevel < 0
+                || compressionLevel > 9) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid screenshot compression: colours=%d, maxWidth=%d, compressionLevel=%d",
+                    colours, maxWidth, compressionLevel));
+        }
+        this.colours = colours;
+        this.maxWidth = maxWidth;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /** @return the compressor configured by the {@code capture.*} properties */
+    public static ScreenshotCompressor fromProperties() {
+        return new ScreenshotCompressor(
+                CAPTURE_COLOURS.getIntWithDefault(DEFAULT_COLOURS),
+                CAPTURE_MAX_WIDTH.getIntWithDefault(0),
+                CAPTURE_PNG_COMPRESSION.getIntWithDefault(DEFAULT_COMPRESSION_LEVEL));
+    }
+
+    /**
+     * @param png a PNG screenshot
+     * @return the compressed PNG, or the original if compressing did not reduce its size
+     * @throws IOException if the screenshot cannot be read
+     */
+    public byte[] compress(byte[] png) throws IOException {
+        long start = System.nanoTime();
+        try {
+            BufferedImage image =
+                    ImageIO.read(new MemoryCacheImageInputStream(new ByteArrayInputStream(png)));
+            if (image == null) {
+                throw new IOException("Screenshot is not a readable image");
+            }
+            byte[] compressed = encode(quantise(downscale(image)));
+            if (compressed.length >= png.length) {
+                return png;
+            }
+            bytesSaved.add(png.length - compressed.length);
+            return compressed;
+        } finally {
+            timings.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private BufferedImage downscale(BufferedImage image) {
+        if (maxWidth == 0 || image.getWidth() <= maxWidth) {
+            return image;
+        }
+        int height = Math.max(1, (int) ((long) image.getHeight() * maxWidth / image.getWidth()));
+        var scaled = new BufferedImage(maxWidth, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(
+                    RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, maxWidth, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /** @return the image, reduced to a median cut palette, as an indexed image */
+    BufferedImage quantise(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] rgb = image.getRGB(0, 0, width, height, null, 0, width);
+
+        int[] histogram = new int[CHANNEL_LEVELS * CHANNEL_LEVELS * CHANNEL_LEVELS];
+        for (int pixel : rgb) {
+            histogram[bin(pixel)]++;
+        }
+        List<ColourBox> boxes = medianCut(histogram);
+
+        int size = boxes.size();
+        byte[] reds = new byte[size];
+        byte[] greens = new byte[size];
+        byte[] blues = new byte[size];
+        byte[] binToIndex = new byte[histogram.length];
+        for (int index = 0; index < size; index++) {
+            ColourBox box = boxes.get(index);
+            int colour = box.averageColour(histogram);
+            reds[index] = (byte) (colour >> 16);
+            greens[index] = (byte) (colour >> 8);
+            blues[index] = (byte) colour;
+            for (int bin : box.bins) {
+                binToIndex[bin] = (byte) index;
+            }
+        }
+
+        var palette = new IndexColorModel(8, size, reds, greens, blues);
+        var indexed = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, palette);
+        byte[] pixels = ((DataBufferByte) indexed.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < rgb.length; i++) {
+            pixels[i] = binToIndex[bin(rgb[i])];
+        }
+        return indexed;
+    }
+
+    private List<ColourBox> medianCut(int[] histogram) {
+        List<Integer> usedBins = new ArrayList<>();
+        for (int bin = 0; bin < histogram.length; bin++) {
+            if (histogram[bin] > 0) {
+                usedBins.add(bin);
+            }
+        }
+        List<ColourBox> boxes = new ArrayList<>();
+        boxes.add(new ColourBox(usedBins.stream().mapToInt(Integer::intValue).toArray()));
+        while (boxes.size() < colours) {
+            ColourBox widest = boxes.stream()
+                    .filter(box -> box.bins.length > 1)
+                    .max(Comparator.comparingInt(ColourBox::widestRange))
+                    .orElse(null);
+            if (widest == null) {
+                break; // every box is a single colour
+            }
+            boxes.remove(widest);
+            boxes.addAll(widest.split(histogram));
+        }
+        return boxes;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        var output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            // the JDK PNG writer uses deflate level 9 - round(quality * 9)
+            param.setCompressionQuality((9 - compressionLevel) / 9f);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static int bin(int rgb) {
+        int shift = 8 - BITS_PER_CHANNEL;
+        int red = (rgb >> 16 & 0xFF) >> shift;
+        int green = (rgb >> 8 & 0xFF) >> shift;
+        int blue = (rgb & 0xFF) >> shift;
+        return (red << 2 * BITS_PER_CHANNEL) | (green << BITS_PER_CHANNEL) | blue;
+    }
+
+    private static int channel(int bin, int channel) {
+        return bin >> (BITS_PER_CHANNEL * (2 - channel)) & (CHANNEL_LEVELS - 1);
+    }
+
+    public TimingStats getTimings() {
+        return timings;
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, %dKB saved", timings, getBytesSaved() / 1024);
+    }
+
+    /** A set of histogram bins which become one colour of the palette. */
+    private static final class ColourBox {
+
+        private final int[] bins;
+        private final int widestChannel;
+        private final int widestRange;
+
+        private ColourBox(int[] bins) {
+            this.bins = bins;
+            int[] min = {CHANNEL_LEVELS, CHANNEL_LEVELS, CHANNEL_LEVELS};
+            int[] max = {-1, -1, -1};
+            for (int bin : bins) {
+                for (int channel = 0; channel < 3; channel++) {
+                    int value = channel(bin, channel);
+                    min[channel] = Math.min(min[channel], value);
+                    max[channel] = Math.max(max[channel], value);
+                }
+            }
+            int widest = 0;
+            for (int channel = 1; channel < 3; channel++) {
+                if (max[channel] - min[channel] > max[widest] - min[widest]) {
+                    widest = channel;
+                }
+            }
+            this.widestChannel = widest;
+            this.widestRange = max[widest] - min[widest];
+        }
+
+        private int widestRange() {
+            return widestRange;
+        }
+
+        /** @return two boxes, split at the pixel median of the widest channel */
+        private List<ColourBox> split(int[] histogram) {
+            int channel = widestChannel;
+            int[] sorted = Arrays.stream(bins)
+                    .boxed()
+                    .sorted(Comparator.comparingInt(bin -> channel(bin, channel)))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            long population = 0;
+            for (int bin : sorted) {
+                population += histogram[bin];
+            }
+            long half = population / 2;
+            long cumulative = 0;
+            int splitAt = 1;
+            for (int i = 0; i < sorted.length - 1; i++) {
+                cumulative += histogram[sorted[i]];
+                splitAt = i + 1;
+                if (cumulative >= half) {
+                    break;
+                }
+            }
+            return List.of(
+                    new ColourBox(Arrays.copyOfRange(sorted, 0, splitAt)),
+                    new ColourBox(Arrays.copyOfRange(sorted, splitAt, sorted.length)));
+        }
+
+        /** @return the pixel-weighted average colour of the box, as RGB */
+        private int averageColour(int[] histogram) {
+            long red = 0, green = 0, blue = 0, population = 0;
+            for (int bin : bins) {
+                long count = histogram[bin];
+                red += count * channel(bin, 0);
+                green += count * channel(bin, 1);
+                blue += count * channel(bin, 2);
+                population += count;
+            }
+            int shift = 8 - BITS_PER_CHANNEL;
+            // centre each channel in its 5-bit level
+            int r = (int) ((red << shift) / population) + (1 << shift - 1);
+            int g = (int) ((green << shift) / population) + (1 << shift - 1);
+            int b = (int) ((blue << shift) / population) + (1 << shift - 1);
+            return (Math.min(r, 255) << 16) | (Math.min(g, 255) << 8) | Math.min(b, 255);
+        }
+    }
+}
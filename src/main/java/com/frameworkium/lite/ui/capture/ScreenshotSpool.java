@@ -0,0 +1,480 @@
+package com.frameworkium.lite.ui.capture;
+
+import static com.frameworkium.lite.common.properties.Property.CAPTURE_SPOOL_DIR;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only spool of Capture screenshot messages on local disk, so
+ * screenshots are not lost if the JVM is killed before they are sent, and
+ * suites need not wait for the upload to finish.
+ *
+ * <p>Enabled by setting {@code capture.spoolDir}. Messages are appended to
+ * segment files as {@code [length][crc32][payload]} records and, once sent,
+ * their offsets are appended to the segment's {@code .ack} file. Segments
+ * are rolled at {@link #DEFAULT_MAX_SEGMENT_BYTES} and deleted once every
+ * record is acknowledged.
+ *
+ * <p>Records are written, but not forced, to disk, so they survive the JVM
+ * being killed, not the machine losing power. Unsent records, including
+ * those from crashed runs, are uploaded by {@link #drainPreviousRuns(Predicate)}
+ * when the next run starts, or by {@link #main(String[])}, e.g.
+ * {@code java -DcaptureURL=... -cp ... com.frameworkium.lite.ui.capture.ScreenshotSpool <dir>}.
+ * A record torn by a crash fails its CRC and ends the replay of its segment.
+ *
+ * <p>Segment names include the writer's PID and start time, so parallel
+ * forks can share a directory: segments of live writers are never replayed,
+ * and replays lock each segment so two cannot send the same records.
+ */
+public final class ScreenshotSpool implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    static final long DEFAULT_MAX_SEGMENT_BYTES = 64L * 1024 * 1024;
+    static final String SEGMENT_SUFFIX = ".spool";
+    static final String ACK_SUFFIX = ".ack";
+
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final String segmentPrefix;
+
+    /** The segment being appended to. Guarded by this. */
+    private Segment current;
+
+    private int segmentCount;
+    private final AtomicLong unacknowledged = new AtomicLong();
+
+    /**
+     * @param directory       where to write segments, created if required
+     * @param maxSegmentBytes the size at which to start a new segment
+     * @throws IOException if the directory cannot be created
+     */
+    public ScreenshotSpool(Path directory, long maxSegmentBytes) throws IOException {
+        this(directory, maxSegmentBytes, ProcessHandle.current().pid());
+    }
+
+    /** @param pid the process the segments are named after */
+    ScreenshotSpool(Path directory, long maxSegmentBytes, long pid) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.segmentPrefix = "segment-" + pid + "-" + System.currentTimeMillis() + "-";
+    }
+
+    /** @return the spool in {@code capture.spoolDir}, if set and writable */
+    public static Optional<ScreenshotSpool> fromProperties() {
+        if (!CAPTURE_SPOOL_DIR.isSpecified()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new ScreenshotSpool(
+                    Paths.get(CAPTURE_SPOOL_DIR.getValue()), DEFAULT_MAX_SEGMENT_BYTES));
+        } catch (IOException e) {
+            logger.warn("Unable to create screenshot spool in {}", CAPTURE_SPOOL_DIR.getValue(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param payload the message to spool
+     * @return the record, to {@link #acknowledge(Record)} once sent
+     * @throws IOException if it cannot be written
+     */
+    public synchronized Record append(byte[] payload) throws IOException {
+        if (current == null || current.size >= maxSegmentBytes) {
+            if (current != null) {
+                current.close();
+            }
+            current =
+                    new Segment(directory.resolve(segmentPrefix + segmentCount++ + SEGMENT_SUFFIX));
+        }
+        Record record = current.append(payload);
+        unacknowledged.incrementAndGet();
+        return record;
+    }
+
+    /**
+     * @param record a record from {@link #append(byte[])}, not yet acknowledged
+     * @return its message
+     * @throws IOException if it cannot be read
+     */
+    public byte[] read(Record record) throws IOException {
+        return record.segment.read(record);
+    }
+
+    /**
+     * Records the message as sent, deleting its segment once all are.
+     *
+     * @param record a record from {@link #append(byte[])}
+     */
+    public void acknowledge(Record record) {
+        try {
+            record.segment.acknowledge(record.offset);
+            unacknowledged.decrementAndGet();
+        } catch (IOException e) {
+            logger.warn("Unable to acknowledge spooled screenshot in {}", record.file, e);
+        }
+    }
+
+    /** @return the number of records appended but not yet acknowledged */
+    public long getUnacknowledged() {
+        return unacknowledged.get();
+    }
+
+    /** Stops appending, leaving unacknowledged records for {@link #replay(Path, Predicate)}. */
+    @Override
+    public synchronized void close() {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    /**
+     * Replays segments left by previous runs, i.e. processes which are no
+     * longer running, on a background thread.
+     *
+     * @param sender sends a message, returning true if it was accepted
+     */
+    public void drainPreviousRuns(Predicate<byte[]> sender) {
+        var drain = new Thread(
+                () -> {
+                    try {
+                        int sent = replay(directory, sender);
+                        if (sent > 0) {
+                            logger.info(
+                                    "Sent {} screenshots left in {} by previous runs",
+                                    sent,
+                                    directory);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        logger.warn("Unable to send screenshots left in {}", directory, e);
+                    }
+                },
+                "screenshot-spool-drain");
+        drain.setDaemon(true);
+        drain.start();
+    }
+
+    /**
+     * Sends every unacknowledged record in the directory, oldest segment
+     * first, deleting segments once all their records are sent. Segments
+     * of live processes, or locked by another replay, are skipped.
+     *
+     * @param directory the spool directory
+     * @param sender    sends a message, returning true if it was accepted
+     * @return the number of records sent
+     * @throws IOException if a segment cannot be read
+     */
+    public static int replay(Path directory, Predicate<byte[]> sender) throws IOException {
+        int sent = 0;
+        for (Path file : listSegments(directory)) {
+            if (isWrittenByLiveProcess(file)) {
+                continue;
+            }
+            try (var channel = FileChannel.open(
+                            file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                    FileLock lock = tryLock(channel)) {
+                // another replay may have finished, and deleted, the segment before we locked it
+                if (lock == null || !Files.exists(file)) {
+                    continue;
+                }
+                sent += replaySegment(file, channel, sender);
+            } catch (IOException e) {
+                // deleted by another replay since it was listed
+                logger.debug("Unable to replay {}", file, e);
+            }
+        }
+        return sent;
+    }
+
+    /**
+     * Locks are released when any channel of the file is closed, so the
+     * segment is only read through the locked channel.
+     */
+    private static int replaySegment(Path file, FileChannel channel, Predicate<byte[]> sender)
+            throws IOException {
+        int sent = 0;
+        boolean allSent = true;
+        try (var acks = FileChannel.open(
+                ackFile(file), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Record record : unacknowledged(file, channel)) {
+                if (sender.test(readPayload(channel, record))) {
+                    acks.write(ByteBuffer.allocate(Long.BYTES).putLong(0, record.offset));
+                    sent++;
+                } else {
+                    allSent = false;
+                }
+            }
+        }
+        if (allSent) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(ackFile(file));
+        }
+        return sent;
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // locked by this JVM
+            return null;
+        }
+    }
+
+    /** @return true if the segment's writer, named by PID and start time, is still running */
+    static boolean isWrittenByLiveProcess(Path segment) {
+        String[] parts = segment.getFileName().toString().split("-");
+        if (parts.length < 4) {
+            return false;
+        }
+        try {
+            long pid = Long.parseLong(parts[1]);
+            Instant created = Instant.ofEpochMilli(Long.parseLong(parts[2]));
+            // a process started after the segment was created has reused the PID
+            return ProcessHandle.of(pid)
+                    .filter(ProcessHandle::isAlive)
+                    .map(process -> process.info()
+                            .startInstant()
+                            .map(start -> !start.isAfter(created))
+                            .orElse(true))
+                    .orElse(false);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            logger.warn("Unable to list screenshot spool {}", directory, e);
+            return List.of();
+        }
+    }
+
+    /** @return the valid records of the segment which have not been acknowledged */
+    private static List<Record> unacknowledged(Path file, FileChannel channel) throws IOException {
+        Set<Long> acknowledged = readAcknowledged(ackFile(file));
+        var records = new ArrayList<Record>();
+        long offset = 0;
+        var header = ByteBuffer.allocate(HEADER_BYTES);
+        while (readFully(channel, header.clear(), offset)) {
+            int length = header.getInt(0);
+            long crc = header.getLong(Integer.BYTES);
+            if (length < 0 || offset + HEADER_BYTES + length > channel.size()) {
+                logger.warn("Truncated record at {} in {}", offset, file);
+                break;
+            }
+            var payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, offset + HEADER_BYTES);
+            if (crc(payload.array()) != crc) {
+                logger.warn("Corrupt record at {} in {}", offset, file);
+                break;
+            }
+            if (!acknowledged.contains(offset)) {
+                records.add(new Record(file, null, offset, length));
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return records;
+    }
+
+    private static byte[] readPayload(FileChannel channel, Record record) throws IOException {
+        var payload = ByteBuffer.allocate(record.length);
+        if (!readFully(channel, payload, record.offset + HEADER_BYTES)) {
+            throw new IOException("Truncated record at " + record.offset + " in " + record.file);
+        }
+        return payload.array();
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<Long> readAcknowledged(Path ackFile) throws IOException {
+        Set<Long> acknowledged = new HashSet<>();
+        if (Files.exists(ackFile)) {
+            // a partial trailing offset, torn by a crash, is ignored
+            var acks = ByteBuffer.wrap(Files.readAllBytes(ackFile));
+            while (acks.remaining() >= Long.BYTES) {
+                acknowledged.add(acks.getLong());
+            }
+        }
+        return acknowledged;
+    }
+
+    private static Path ackFile(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(
+                name.substring(0, name.length() - SEGMENT_SUFFIX.length()) + ACK_SUFFIX);
+    }
+
+    private static long crc(byte[] payload) {
+        var crc = new CRC32();
+        crc.update(payload);
+        return crc.getValue();
+    }
+
+    /**
+     * Uploads the unsent screenshots left in a spool directory to the
+     * Capture at {@code captureURL}.
+     *
+     * @param args the spool directory, default {@code capture.spoolDir}
+     * @throws IOException if the spool cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : CAPTURE_SPOOL_DIR.getValue());
+        int sent = replay(directory, ScreenshotCapture::sendSpooledMessage);
+        logger.info(
+                "Replayed {} screenshots from {}, {} segments remain",
+                sent,
+                directory,
+                listSegments(directory).size());
+    }
+
+    /** A spooled message, and where it is in its segment. */
+    public static final class Record {
+
+        private final Path file;
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+
+        private Record(Path file, Segment segment, long offset, int length) {
+            this.file = file;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A segment file being appended to, which is locked, so it is not
+     * replayed, until closed, and deleted once closed and fully acknowledged.
+     */
+    private static final class Segment {
+
+        private final Path file;
+        private final FileChannel records;
+        private final FileChannel acks;
+        private long size;
+        private int appended;
+        private int acknowledged;
+        private boolean closed;
+
+        Segment(Path file) throws IOException {
+            this.file = file;
+            this.records = FileChannel.open(
+                    file,
+                    StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.records.lock();
+            this.acks = FileChannel.open(
+                    ackFile(file), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        synchronized Record append(byte[] payload) throws IOException {
+            var buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                    .putInt(payload.length)
+                    .putLong(crc(payload))
+                    .put(payload)
+                    .flip();
+            long offset = size;
+            while (buffer.hasRemaining()) {
+                records.write(buffer, offset + buffer.position());
+            }
+            size += buffer.limit();
+            appended++;
+            return new Record(file, this, offset, payload.length);
+        }
+
+        /** Reads through the locked channel while open, as closing another would unlock it. */
+        synchronized byte[] read(Record record) throws IOException {
+            if (!closed) {
+                return readPayload(records, record);
+            }
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return readPayload(channel, record);
+            }
+        }
+
+        synchronized void acknowledge(long offset) throws IOException {
+            var ack = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+            if (closed) {
+                // the channels are closed with the segment, so late acks reopen the file
+                try (var lateAcks = FileChannel.open(
+                        ackFile(file), StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    lateAcks.write(ack);
+                }
+            } else {
+                acks.write(ack);
+            }
+            acknowledged++;
+            deleteIfComplete();
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                records.close();
+                acks.close();
+            } catch (IOException e) {
+                logger.warn("Unable to close screenshot spool segment {}", file, e);
+            }
+            deleteIfComplete();
+        }
+
+        private void deleteIfComplete() {
+            if (!closed || acknowledged < appended) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(ackFile(file));
+            } catch (IOException e) {
+                logger.warn("Unable to delete screenshot spool segment {}", file, e);
+            }
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.frameworkium.lite.ui.capture.model.message;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.frameworkium.lite.ui.capture.model.Command;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Base64;
+
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class CreateScreenshot {
 
@@ -14,7 +17,13 @@ public class CreateScreenshot {
     public String url;
     public String executionID;
     public String errorMessage;
-    public String screenshotBase64;
+
+    /**
+     * The PNG screenshot, which Jackson writes as base64 directly from the
+     * bytes, so no base64 {@link String} copy is held on the heap.
+     */
+    @JsonProperty("screenshotBase64")
+    public byte[] screenshot;
 
     /**
      * Create screenshot object.
@@ -24,21 +33,36 @@ public class CreateScreenshot {
             Command command,
             String url,
             String errorMessage,
-            String screenshotBase64) {
+            byte[] screenshot) {
 
         logger.debug(
                 "Creating screenshot: executionID='{}', "
                         + "Command.action='{}', url='{}', "
-                        + "errorMessage='{}', screenshotBase64.length={}",
+                        + "errorMessage='{}', screenshot.length={}",
                 executionID,
                 command.action,
                 url,
                 errorMessage,
-                screenshotBase64.length());
+                screenshot.length);
         this.executionID = executionID;
         this.command = command;
         this.url = url;
         this.errorMessage = errorMessage;
-        this.screenshotBase64 = screenshotBase64;
+        this.screenshot = screenshot;
+    }
+
+    /**
+     * Create screenshot object.
+     *
+     * @deprecated use {@link #CreateScreenshot(String, Command, String, String, byte[])}
+     */
+    @Deprecated
+    public CreateScreenshot(
+            String executionID,
+            Command command,
+            String url,
+            String errorMessage,
+            String screenshotBase64) {
+        this(executionID, command, url, errorMessage, Base64.getDecoder().decode(screenshotBase64));
     }
 }
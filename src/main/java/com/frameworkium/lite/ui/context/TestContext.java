@@ -0,0 +1,139 @@
+package com.frameworkium.lite.ui.context;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The state of one test, e.g. its browser, wait and Capture, which the
+ * framework looks up using {@link #current()}.
+ *
+ * <p>By default, each thread has its own context, which suits TestNG running
+ * each test on one thread. Tests whose work moves between threads, e.g. using
+ * an executor or many lightweight sessions sharing a few threads, should bind
+ * a context explicitly using {@link #run(Runnable)} or {@link #call(Callable)}
+ * and pass it to other threads using {@link #wrap(Runnable)}. A binding only
+ * lasts for the duration of the call, so no state is left on pooled threads.
+ * This is the scoping of Java 21's {@code ScopedValue}, which is not available
+ * on Java 17.
+ */
+public final class TestContext {
+
+    private static final ThreadLocal<TestContext> DEFAULT_CONTEXT =
+            ThreadLocal.withInitial(TestContext::new);
+    private static final ThreadLocal<TestContext> BOUND_CONTEXT = new ThreadLocal<>();
+
+    private final Map<Key<?>, Object> values = new ConcurrentHashMap<>();
+
+    /**
+     * Identifies a value in a {@link TestContext}. Keys are compared by
+     * identity, so each owner of a value should create its own.
+     *
+     * @param <T> the type of the value
+     */
+    public static final class Key<T> {
+
+        private final String name;
+
+        /** @param name describes the value, used by {@link #toString()} */
+        public Key(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * @return the context bound by {@link #run(Runnable)} or
+     *         {@link #call(Callable)} if any, otherwise the current thread's
+     */
+    public static TestContext current() {
+        TestContext bound = BOUND_CONTEXT.get();
+        return bound != null ? bound : DEFAULT_CONTEXT.get();
+    }
+
+    /**
+     * @param task the task to run in the current context
+     * @return a task which runs in the current context, whichever thread runs it
+     */
+    public static Runnable wrap(Runnable task) {
+        TestContext context = current();
+        return () -> context.run(task);
+    }
+
+    /**
+     * @param task the task to call in the current context
+     * @return a task which is called in the current context, whichever thread calls it
+     */
+    public static <T> Callable<T> wrapCallable(Callable<T> task) {
+        TestContext context = current();
+        return () -> context.call(task);
+    }
+
+    /**
+     * Runs the task with this as the {@link #current()} context, restoring
+     * the previous context afterwards.
+     *
+     * @param task the task to run
+     */
+    public void run(Runnable task) {
+        TestContext previous = BOUND_CONTEXT.get();
+        BOUND_CONTEXT.set(this);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Calls the task with this as the {@link #current()} context, restoring
+     * the previous context afterwards.
+     *
+     * @param task the task to call
+     * @return the result of the task
+     * @throws Exception thrown by the task
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        TestContext previous = BOUND_CONTEXT.get();
+        BOUND_CONTEXT.set(this);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private static void restore(TestContext previous) {
+        if (previous == null) {
+            BOUND_CONTEXT.remove();
+        } else {
+            BOUND_CONTEXT.set(previous);
+        }
+    }
+
+    /** @return the value for the key, or null if there is none */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key<T> key) {
+        return (T) values.get(key);
+    }
+
+    /** @return the value for the key, first setting it using the supplier if there is none */
+    @SuppressWarnings("unchecked")
+    public <T> T computeIfAbsent(Key<T> key, Supplier<T> supplier) {
+        return (T) values.computeIfAbsent(key, k -> supplier.get());
+    }
+
+    /** @param value the value for the key, must not be null */
+    public <T> void set(Key<T> key, T value) {
+        values.put(key, value);
+    }
+
+    public void remove(Key<?> key) {
+        values.remove(key);
+    }
+}
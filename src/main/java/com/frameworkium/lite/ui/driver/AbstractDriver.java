@@ -7,15 +7,30 @@ import com.frameworkium.lite.ui.listeners.LoggingListener;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.service.DriverFinder;
+import org.openqa.selenium.remote.service.DriverService;
 import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public abstract class AbstractDriver implements Driver {
 
     protected static final Logger logger = LogManager.getLogger();
 
+    private final List<Runnable> quitHooks = new CopyOnWriteArrayList<>();
+
     private WebDriver webDriver;
 
     @Override
@@ -26,18 +41,115 @@ public abstract class AbstractDriver implements Driver {
     /** Creates the Decorated {@link WebDriver} object and maximises if required. */
     public void initialise() {
         var capabilities = getCapabilities();
+        if (Property.USER_CONTEXTS.getBoolean() && capabilities instanceof MutableCapabilities) {
+            // user contexts are created over the WebDriver BiDi connection
+            ((MutableCapabilities) capabilities).setCapability("webSocketUrl", true);
+        }
+        if (Property.PAGE_LOAD_STRATEGY.isSpecified()
+                && capabilities instanceof MutableCapabilities) {
+            ((MutableCapabilities) capabilities)
+                    .setCapability(
+                            CapabilityType.PAGE_LOAD_STRATEGY,
+                            PageLoadStrategy.fromString(Property.PAGE_LOAD_STRATEGY.getValue()));
+        }
         logger.debug("Browser Capabilities: {}", capabilities);
-        var webDriver = getWebDriver(capabilities);
-        this.webDriver = decorateWebDriver(webDriver);
+        final WebDriver webDriver;
+        try {
+            webDriver = getWebDriver(capabilities);
+        } catch (RuntimeException e) {
+            runQuitHooks();
+            throw e;
+        }
+        this.webDriver = decorateWebDriver(webDriver, true);
         this.webDriver.manage().timeouts().scriptTimeout(Duration.ofSeconds(21));
         if (Property.MAXIMISE.getBoolean()) {
             this.webDriver.manage().window().maximize();
         }
     }
 
-    private WebDriver decorateWebDriver(WebDriver driverToBeDecorated) {
+    /**
+     * Registers an action, e.g. deleting a temporary browser profile, to run
+     * after the browser quits, or if it fails to start.
+     *
+     * @param hook the action to run
+     */
+    protected void onQuit(Runnable hook) {
+        quitHooks.add(hook);
+    }
+
+    /**
+     * @return true if {@code cgroup.isolation=true} and each browser has its
+     *         own driver service, which can be moved into the browser's cgroup
+     */
+    protected boolean isIsolationRequired() {
+        if (!Property.CGROUP_ISOLATION.getBoolean()) {
+            return false;
+        }
+        if (Property.SHARED_DRIVER_SERVICE.getBoolean()) {
+            logger.debug("Not isolating browser, its driver service is shared");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Starts a driver service and moves it into its own cgroup, see
+     * {@link BrowserCgroup}, before the browser is launched, so the browser's
+     * processes are created in the cgroup. The cgroup is reported on and
+     * removed after the browser quits.
+     *
+     * @param service          a new, unstarted, driver service
+     * @param options          the browser's options, used to find the driver
+     *                         and browser, e.g. using Selenium Manager
+     * @param setBrowserBinary sets the browser binary on {@code options}, if found
+     * @param <S>              the type of driver service
+     * @return the started driver service
+     */
+    protected <S extends DriverService> S startIsolatedService(
+            S service, Capabilities options, Consumer<String> setBrowserBinary) {
+        var finder = new DriverFinder(service, options);
+        service.setExecutable(finder.getDriverPath());
+        if (finder.hasBrowserPath()) {
+            setBrowserBinary.accept(finder.getBrowserPath());
+        }
+        try {
+            service.start();
+        } catch (IOException e) {
+            throw new WebDriverException("Unable to start driver service", e);
+        }
+        onQuit(service::stop);
+        Optional<ProcessHandle> process = BrowserProcesses.findDriverService(service.getUrl());
+        if (process.isEmpty()) {
+            logger.debug("Not isolating browser, its driver service process was not found");
+        }
+        process.flatMap(BrowserCgroup::isolate)
+                .ifPresent(cgroup -> onQuit(cgroup::reportAndRemove));
+        return service;
+    }
+
+    private void runQuitHooks() {
+        quitHooks.forEach(Runnable::run);
+        quitHooks.clear();
+    }
+
+    /** Quit hooks are not run when the returned driver quits. */
+    @Override
+    public WebDriver decorate(WebDriver webDriver) {
+        return decorateWebDriver(webDriver, false);
+    }
+
+    private WebDriver decorateWebDriver(WebDriver driverToBeDecorated, boolean runQuitHooks) {
         var decoratedDriver =
                 new EventFiringDecorator<>(new LoggingListener()).decorate(driverToBeDecorated);
+        if (runQuitHooks && !quitHooks.isEmpty()) {
+            WebDriverListener quitListener = new WebDriverListener() {
+                @Override
+                public void afterQuit(WebDriver driver) {
+                    runQuitHooks();
+                }
+            };
+            decoratedDriver = new EventFiringDecorator<>(quitListener).decorate(decoratedDriver);
+        }
         if (ScreenshotCapture.isRequired()) {
             var captureListener = new CaptureListener();
             decoratedDriver = new EventFiringDecorator<>(captureListener).decorate(decoratedDriver);
@@ -0,0 +1,202 @@
+package com.frameworkium.lite.ui.driver;
+
+import static com.frameworkium.lite.common.properties.Property.*;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+
+/**
+ * A Linux cgroup (v2) holding the processes of one local browser, so that its
+ * CPU and memory can be capped and one runaway browser cannot starve the
+ * others running in parallel.
+ *
+ * <p>Enabled by {@code cgroup.isolation=true}. Each browser's cgroup is created
+ * under {@code cgroup.parent}, default {@code /sys/fs/cgroup/frameworkium},
+ * which must exist, be writable and have the {@code cpu} and {@code memory}
+ * controllers enabled for its children, e.g. using
+ * {@code echo "+cpu +memory" > cgroup.subtree_control}.
+ * {@code cgroup.cpuPercent} caps each browser's CPU, e.g. 100 is one core, and
+ * {@code cgroup.memoryMb} its memory. Both are unlimited by default.
+ *
+ * <p>The driver service is moved into the cgroup after it starts and before
+ * it launches the browser, see {@link #isolate(ProcessHandle)}.
+ *
+ * <p>If cgroups are unavailable, a warning is logged and browsers run as normal.
+ */
+public final class BrowserCgroup {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    static final Path DEFAULT_PARENT = Path.of("/sys/fs/cgroup/frameworkium");
+    private static final long CPU_PERIOD_MICROS = 100_000;
+    private static final int REMOVE_ATTEMPTS = 20;
+    private static final long REMOVE_RETRY_MILLIS = 100;
+
+    private static volatile boolean unavailableWarningLogged;
+
+    private final Path directory;
+
+    BrowserCgroup(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Moves a started driver service into a new cgroup, limited by the
+     * {@code cgroup.*} properties. Called before the session is created, so
+     * the browser, and every process it forks, is created in the cgroup.
+     *
+     * <p>The driver service itself runs outside the cgroup from when it is
+     * started until it is moved. It has not launched a browser by then, but
+     * any process it forks in that window, e.g. a helper, escapes the limits.
+     *
+     * @param driverService the process of a started driver service which has
+     *                      not yet launched a browser
+     * @return the browser's cgroup, empty if cgroups are unavailable
+     */
+    public static Optional<BrowserCgroup> isolate(ProcessHandle driverService) {
+        Path parent =
+                CGROUP_PARENT.isSpecified() ? Path.of(CGROUP_PARENT.getValue()) : DEFAULT_PARENT;
+        return create(
+                        parent,
+                        "browser-" + driverService.pid(),
+                        CGROUP_CPU_PERCENT.getIntWithDefault(0),
+                        CGROUP_MEMORY_MB.getIntWithDefault(0))
+                .filter(cgroup -> cgroup.addProcessTree(driverService));
+    }
+
+    /**
+     * @param parent     an existing cgroup with the cpu and memory controllers
+     *                   enabled for its children
+     * @param name       the name of the new cgroup
+     * @param cpuPercent the CPU limit, as a percentage of one core, 0 for none
+     * @param memoryMb   the memory limit, 0 for none
+     * @return the new cgroup, empty if it could not be created
+     */
+    static Optional<BrowserCgroup> create(Path parent, String name, int cpuPercent, long memoryMb) {
+        Path directory = parent.resolve(name);
+        try {
+            Files.createDirectory(directory);
+            var cgroup = new BrowserCgroup(directory);
+            if (cpuPercent > 0) {
+                cgroup.write(
+                        "cpu.max", cpuPercent * CPU_PERIOD_MICROS / 100 + " " + CPU_PERIOD_MICROS);
+            }
+            if (memoryMb > 0) {
+                cgroup.write("memory.max", Long.toString(memoryMb * 1024 * 1024));
+            }
+            return Optional.of(cgroup);
+        } catch (IOException | UnsupportedOperationException e) {
+            if (!unavailableWarningLogged) {
+                unavailableWarningLogged = true;
+                logger.warn(
+                        "Unable to isolate browsers in cgroups under {}, see BrowserCgroup",
+                        parent);
+            }
+            logger.debug("Unable to create cgroup {}", directory, e);
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException deleteException) {
+                logger.trace("Unable to delete cgroup {}", directory, deleteException);
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Processes created later by processes in the cgroup, e.g. renderers,
+     * are created in the cgroup.
+     *
+     * @param root the process to move, with its descendants
+     * @return false if the processes could not be moved
+     */
+    boolean addProcessTree(ProcessHandle root) {
+        try {
+            for (ProcessHandle process : BrowserProcesses.processTree(root)) {
+                write("cgroup.procs", process.pid() + "\n");
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Unable to move browser processes into cgroup {}", directory);
+            logger.debug("Unable to move browser processes into cgroup.", e);
+            remove();
+            return false;
+        }
+    }
+
+    /** @return the CPU time used by the browser, in microseconds, if available */
+    OptionalLong cpuUsageMicros() {
+        try (Stream<String> lines = Files.lines(directory.resolve("cpu.stat"))) {
+            // e.g. "usage_usec 123456"
+            return lines.filter(line -> line.startsWith("usage_usec "))
+                    .mapToLong(line -> Long.parseLong(
+                            line.substring("usage_usec ".length()).trim()))
+                    .findFirst();
+        } catch (IOException | UncheckedIOException | NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    /** @return the peak memory used by the browser, if available */
+    OptionalLong peakMemoryBytes() {
+        for (String file : new String[] {"memory.peak", "memory.current"}) {
+            try {
+                return OptionalLong.of(
+                        Long.parseLong(Files.readString(directory.resolve(file)).trim()));
+            } catch (IOException | NumberFormatException e) {
+                // memory.peak requires Linux 5.19
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /** Logs the browser's CPU and memory usage and removes its, now empty, cgroup. */
+    public void reportAndRemove() {
+        OptionalLong cpuMicros = cpuUsageMicros();
+        OptionalLong memoryBytes = peakMemoryBytes();
+        logger.info(
+                "Browser {} used CPU={}ms, peak memory={}MB",
+                directory.getFileName(),
+                cpuMicros.isPresent() ? cpuMicros.getAsLong() / 1000 : "?",
+                memoryBytes.isPresent() ? memoryBytes.getAsLong() / (1024 * 1024) : "?");
+        remove();
+    }
+
+    private void remove() {
+        // browser processes can take a moment to exit after quit
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Files.deleteIfExists(directory);
+                return;
+            } catch (IOException e) {
+                if (attempt == REMOVE_ATTEMPTS) {
+                    logger.debug("Unable to remove cgroup {}", directory, e);
+                    return;
+                }
+            }
+            try {
+                Thread.sleep(REMOVE_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(String file, String value) throws IOException {
+        Files.writeString(
+                directory.resolve(file),
+                value,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+}
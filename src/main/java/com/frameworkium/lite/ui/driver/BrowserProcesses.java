@@ -0,0 +1,120 @@
+package com.frameworkium.lite.ui.driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds the operating system processes of a local browser, i.e. its driver
+ * service, e.g. chromedriver, and the browser processes it launched.
+ *
+ * <p>Memory usage is read from {@code /proc}, so is only available on Linux.
+ * Nothing is found for browsers running on a Grid.
+ */
+public final class BrowserProcesses {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private BrowserProcesses() {
+        // hidden
+    }
+
+    /**
+     * Driver services, e.g. chromedriver and geckodriver, are started with a
+     * {@code --port=} argument matching the port WebDriver connects to.
+     *
+     * @param webDriver a, possibly decorated, local {@link WebDriver}
+     * @return the process of the driver service, if found
+     */
+    public static Optional<ProcessHandle> findDriverService(WebDriver webDriver) {
+        WebDriver unwrapped = DriverUnwrapper.unwrap(webDriver);
+        if (!(unwrapped instanceof RemoteWebDriver)) {
+            return Optional.empty();
+        }
+        var executor = ((RemoteWebDriver) unwrapped).getCommandExecutor();
+        if (!(executor instanceof HttpCommandExecutor)) {
+            return Optional.empty();
+        }
+        return findDriverService(((HttpCommandExecutor) executor).getAddressOfRemoteServer());
+    }
+
+    /**
+     * @param serverUrl the URL of a driver service, e.g. from
+     *                  {@link org.openqa.selenium.remote.service.DriverService#getUrl()}
+     * @return the process of the driver service, if local and found
+     */
+    public static Optional<ProcessHandle> findDriverService(URL serverUrl) {
+        if (!isLocalHost(serverUrl.getHost())) {
+            return Optional.empty();
+        }
+        String portArgument = "--port=" + serverUrl.getPort();
+        return ProcessHandle.current()
+                .descendants()
+                .filter(process -> process.info()
+                        .arguments()
+                        .map(arguments -> Arrays.asList(arguments).contains(portArgument))
+                        .orElse(false))
+                .findFirst();
+    }
+
+    private static boolean isLocalHost(String host) {
+        return "localhost".equals(host) || "127.0.0.1".equals(host) || "[::1]".equals(host);
+    }
+
+    /**
+     * @param root a process, e.g. from {@link #findDriverService(WebDriver)}
+     * @return the process and all its live descendants
+     */
+    public static List<ProcessHandle> processTree(ProcessHandle root) {
+        return Stream.concat(Stream.of(root), root.descendants())
+                .filter(ProcessHandle::isAlive)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Resident memory is counted once per process, so memory shared between
+     * the browser's processes is counted more than once. This over-estimate
+     * still rises with the memory used by the browser.
+     *
+     * @param root a process, e.g. from {@link #findDriverService(WebDriver)}
+     * @return the sum of resident memory of the process and its descendants,
+     *         empty if unavailable, e.g. not on Linux
+     */
+    public static OptionalLong residentMemoryBytes(ProcessHandle root) {
+        long totalBytes = 0;
+        for (ProcessHandle process : processTree(root)) {
+            OptionalLong bytes = residentMemoryBytes(process.pid());
+            if (bytes.isEmpty() && process.pid() == root.pid()) {
+                return OptionalLong.empty();
+            }
+            totalBytes += bytes.orElse(0);
+        }
+        return OptionalLong.of(totalBytes);
+    }
+
+    private static OptionalLong residentMemoryBytes(long pid) {
+        try (Stream<String> status = Files.lines(Path.of("/proc", Long.toString(pid), "status"))) {
+            // e.g. "VmRSS:	  123456 kB"
+            return status.filter(line -> line.startsWith("VmRSS:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                    .findFirst();
+        } catch (IOException | UncheckedIOException | NumberFormatException e) {
+            logger.trace("Unable to read memory usage of process {}", pid, e);
+            return OptionalLong.empty();
+        }
+    }
+}
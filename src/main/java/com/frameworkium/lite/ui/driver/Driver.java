@@ -29,4 +29,15 @@ public interface Driver {
      * @return WebDriver
      */
     WebDriver getWebDriver();
+
+    /**
+     * Decorates another {@link WebDriver} for this driver's browser with the
+     * same listeners, e.g. logging and Capture, as {@link #getWebDriver()}.
+     *
+     * @param webDriver a, possibly decorated, driver for this driver's browser
+     * @return the decorated driver
+     */
+    default WebDriver decorate(WebDriver webDriver) {
+        return webDriver;
+    }
 }
@@ -28,7 +28,15 @@ public class DriverSetup {
      * @return An uninitialised desired {@link Driver} implementation.
      */
     public static Driver instantiateDriver() {
-        Driver driver = createDriverImpl(getBrowserTypeFromProperty());
+        return instantiateDriver(getBrowserTypeFromProperty());
+    }
+
+    /**
+     * @param browser the type of browser to create
+     * @return An uninitialised {@link Driver} implementation for the browser.
+     */
+    public static Driver instantiateDriver(Browser browser) {
+        Driver driver = createDriverImpl(browser);
         if (useRemoteDriver()) {
             driver = new GridImpl(driver.getCapabilities());
         }
@@ -71,7 +79,8 @@ public class DriverSetup {
         return Property.GRID_URL.isSpecified();
     }
 
-    private static Browser getBrowserTypeFromProperty() {
+    /** @return the browser set by the {@code browser} or {@code customBrowserImpl} properties */
+    public static Browser getBrowserTypeFromProperty() {
         if (Property.CUSTOM_BROWSER_IMPL.isSpecified()) {
             return Browser.CUSTOM;
         } else if (Property.BROWSER.isSpecified()) {
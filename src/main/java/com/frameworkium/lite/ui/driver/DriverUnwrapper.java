@@ -0,0 +1,31 @@
+package com.frameworkium.lite.ui.driver;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WrapsDriver;
+
+public final class DriverUnwrapper {
+
+    private DriverUnwrapper() {
+        // hidden
+    }
+
+    /**
+     * Frameworkium decorates each {@link WebDriver} with event listeners for
+     * logging and Capture. Calls made on the unwrapped driver skip these,
+     * which is useful for housekeeping that tests should not see.
+     *
+     * @param webDriver a, possibly decorated, {@link WebDriver}
+     * @return the innermost {@link WebDriver} wrapped by any decorators
+     */
+    public static WebDriver unwrap(WebDriver webDriver) {
+        WebDriver unwrapped = webDriver;
+        while (unwrapped instanceof WrapsDriver) {
+            WebDriver wrapped = ((WrapsDriver) unwrapped).getWrappedDriver();
+            if (wrapped == null || wrapped == unwrapped) {
+                break;
+            }
+            unwrapped = wrapped;
+        }
+        return unwrapped;
+    }
+}
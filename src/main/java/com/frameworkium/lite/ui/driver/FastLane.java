@@ -0,0 +1,163 @@
+package com.frameworkium.lite.ui.driver;
+
+import static com.frameworkium.lite.common.properties.Property.CDP_FAST_LANE;
+import static com.frameworkium.lite.common.properties.Property.USER_CONTEXTS;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.ConverterFunctions;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.HasDevTools;
+
+import java.util.*;
+
+/**
+ * Shorter paths for the commands Frameworkium itself sends most often, i.e.
+ * screenshots and the JavaScript run by its helpers.
+ *
+ * <p>When enabled by {@code cdpFastLane=true}:
+ * <ul>
+ * <li>Screenshots of local Chrome and Edge browsers are taken over their
+ *     DevTools connection, skipping the driver service and the decorators.
+ *     Other browsers, or if DevTools fails, fall back to WebDriver.
+ * <li>Helper JavaScript is run on the undecorated {@link WebDriver}, skipping
+ *     the event listeners, which do not need to see it.
+ * </ul>
+ *
+ * <p>Scripts are not sent over DevTools because it runs them in the top-level
+ * document, ignoring the frame selected by WebDriver. Disabled when
+ * {@code userContexts=true}, because the decorators select each test's window.
+ */
+public final class FastLane {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /** DevTools connection, or empty if unavailable, of each undecorated driver. */
+    private static final Map<WebDriver, Optional<CdpSession>> cdpSessions =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private FastLane() {
+        // hidden
+    }
+
+    /** @return true if {@code cdpFastLane=true} and user contexts are not in use */
+    public static boolean isEnabled() {
+        return CDP_FAST_LANE.getBoolean() && !USER_CONTEXTS.getBoolean();
+    }
+
+    /**
+     * @param driver a, possibly decorated, {@link WebDriver}
+     * @return a PNG screenshot of the current window's viewport
+     * @throws WebDriverException if the screenshot could not be taken
+     */
+    public static byte[] screenshot(WebDriver driver) {
+        if (isEnabled()) {
+            Optional<byte[]> screenshot = cdpScreenshot(driver);
+            if (screenshot.isPresent()) {
+                return screenshot.get();
+            }
+        }
+        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+    }
+
+    /**
+     * @param driver a, possibly decorated, {@link WebDriver}
+     * @return a {@link JavascriptExecutor} for running helper scripts, which
+     *         skips the decorators if enabled
+     */
+    public static JavascriptExecutor javascriptExecutor(WebDriver driver) {
+        return isEnabled() ? undecoratedJavascriptExecutor(driver) : (JavascriptExecutor) driver;
+    }
+
+    /**
+     * Element arguments are unwrapped too, so they belong to the undecorated driver.
+     *
+     * @param driver a, possibly decorated, {@link WebDriver}
+     * @return a {@link JavascriptExecutor} which runs scripts on the undecorated driver
+     */
+    static JavascriptExecutor undecoratedJavascriptExecutor(WebDriver driver) {
+        WebDriver undecorated = DriverUnwrapper.unwrap(driver);
+        if (undecorated == driver || !(undecorated instanceof JavascriptExecutor)) {
+            return (JavascriptExecutor) driver;
+        }
+        var js = (JavascriptExecutor) undecorated;
+        return new JavascriptExecutor() {
+            @Override
+            public Object executeScript(String script, Object... args) {
+                return js.executeScript(script, unwrapElements(args));
+            }
+
+            @Override
+            public Object executeAsyncScript(String script, Object... args) {
+                return js.executeAsyncScript(script, unwrapElements(args));
+            }
+        };
+    }
+
+    private static Object[] unwrapElements(Object[] args) {
+        Object[] unwrapped = args.clone();
+        for (int i = 0; i < unwrapped.length; i++) {
+            while (unwrapped[i] instanceof WrapsElement) {
+                WebElement wrapped = ((WrapsElement) unwrapped[i]).getWrappedElement();
+                if (wrapped == null || wrapped == unwrapped[i]) {
+                    break;
+                }
+                unwrapped[i] = wrapped;
+            }
+        }
+        return unwrapped;
+    }
+
+    static Optional<byte[]> cdpScreenshot(WebDriver driver) {
+        WebDriver undecorated = DriverUnwrapper.unwrap(driver);
+        Optional<CdpSession> cdpSession =
+                cdpSessions.computeIfAbsent(undecorated, FastLane::connect);
+        if (cdpSession.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(cdpSession.get().captureScreenshot(undecorated.getWindowHandle()));
+        } catch (RuntimeException e) {
+            logger.debug("DevTools screenshot failed, using WebDriver", e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<CdpSession> connect(WebDriver undecorated) {
+        if (!(undecorated instanceof HasDevTools)) {
+            return Optional.empty();
+        }
+        try {
+            return ((HasDevTools) undecorated).maybeGetDevTools().map(CdpSession::new);
+        } catch (RuntimeException e) {
+            logger.debug("DevTools unavailable, using WebDriver", e);
+            return Optional.empty();
+        }
+    }
+
+    /** A DevTools connection attached to one window at a time. */
+    private static final class CdpSession {
+
+        private final DevTools devTools;
+        private String windowHandle;
+
+        private CdpSession(DevTools devTools) {
+            this.devTools = devTools;
+        }
+
+        private synchronized byte[] captureScreenshot(String currentWindowHandle) {
+            if (!currentWindowHandle.equals(windowHandle)) {
+                // Chromium window handles are DevTools target ids
+                devTools.createSession(currentWindowHandle);
+                windowHandle = currentWindowHandle;
+            }
+            String base64Png = devTools.send(new Command<>(
+                    "Page.captureScreenshot",
+                    Map.of("format", "png"),
+                    ConverterFunctions.map("data", String.class)));
+            return Base64.getDecoder().decode(base64Png);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.frameworkium.lite.ui.driver;
+
+import org.openqa.selenium.*;
+import org.openqa.selenium.interactions.Interactive;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.function.Supplier;
+
+/**
+ * A {@link WebDriver} which only starts, or borrows, the real browser when
+ * it is first used, so tests which never use the browser do not pay for one.
+ */
+public final class LazyWebDriver {
+
+    private static final Class<?>[] INTERFACES = {
+        WebDriver.class,
+        JavascriptExecutor.class,
+        TakesScreenshot.class,
+        HasCapabilities.class,
+        Interactive.class,
+        WrapsDriver.class
+    };
+
+    private LazyWebDriver() {
+        // hidden
+    }
+
+    /**
+     * The returned {@link WebDriver} also implements {@link JavascriptExecutor},
+     * {@link TakesScreenshot}, {@link HasCapabilities}, {@link Interactive}
+     * and {@link WrapsDriver}, so it can be cast like a decorated driver.
+     *
+     * @param acquirer called on every use of the returned {@link WebDriver},
+     *                 it should acquire the real browser once and return it
+     * @return a {@link WebDriver} delegating every call to the acquired browser
+     */
+    public static WebDriver create(Supplier<WebDriver> acquirer) {
+        return (WebDriver) Proxy.newProxyInstance(
+                LazyWebDriver.class.getClassLoader(), INTERFACES, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "LazyWebDriver";
+                        case "getWrappedDriver":
+                            return acquirer.get();
+                        default:
+                            try {
+                                return method.invoke(acquirer.get(), args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+}
@@ -0,0 +1,71 @@
+package com.frameworkium.lite.ui.driver.daemon;
+
+import org.openqa.selenium.remote.*;
+import org.openqa.selenium.remote.codec.w3c.W3CHttpCommandCodec;
+import org.openqa.selenium.remote.codec.w3c.W3CHttpResponseCodec;
+import org.openqa.selenium.remote.http.HttpClient;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Sends commands to an existing session, owned by the {@link BrowserDaemon},
+ * rather than creating a new one.
+ *
+ * <p>{@code newSession} returns the existing session without contacting the
+ * driver service, and {@code quit} releases the session back to the daemon
+ * instead of quitting the browser.
+ */
+final class AttachingCommandExecutor implements CommandExecutor {
+
+    private final String sessionId;
+    private final Map<String, Object> capabilities;
+    private final Runnable onQuit;
+    private final HttpClient client;
+    private final W3CHttpCommandCodec commandCodec = new W3CHttpCommandCodec();
+    private final W3CHttpResponseCodec responseCodec = new W3CHttpResponseCodec();
+
+    /**
+     * @param serverUrl    the address of the driver service running the session
+     * @param sessionId    the existing session's id
+     * @param capabilities the existing session's capabilities
+     * @param onQuit       releases the session, called instead of quitting it
+     */
+    AttachingCommandExecutor(
+            URL serverUrl, String sessionId, Map<String, Object> capabilities, Runnable onQuit) {
+        this.sessionId = sessionId;
+        this.capabilities = capabilities;
+        this.onQuit = onQuit;
+        this.client = HttpClient.Factory.createDefault().createClient(serverUrl);
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        switch (command.getName()) {
+            case DriverCommand.NEW_SESSION:
+                return success(capabilities);
+            case DriverCommand.QUIT:
+                try {
+                    onQuit.run();
+                } finally {
+                    client.close();
+                }
+                return success(null);
+            default:
+                Response response =
+                        responseCodec.decode(client.execute(commandCodec.encode(command)));
+                if (response.getSessionId() == null) {
+                    response.setSessionId(sessionId);
+                }
+                return response;
+        }
+    }
+
+    private Response success(Object value) {
+        var response = new Response(new SessionId(sessionId));
+        response.setState("success");
+        response.setValue(value);
+        return response;
+    }
+}
@@ -0,0 +1,333 @@
+package com.frameworkium.lite.ui.driver.daemon;
+
+import static com.frameworkium.lite.common.properties.Property.BROWSER_DAEMON_LEASE_TIMEOUT;
+import static com.frameworkium.lite.common.properties.Property.BROWSER_DAEMON_PORT;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.frameworkium.lite.common.concurrent.DaemonThreadFactory;
+import com.frameworkium.lite.ui.driver.Driver;
+import com.frameworkium.lite.ui.driver.DriverSetup;
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser;
+import com.frameworkium.lite.ui.driver.DriverUnwrapper;
+import com.frameworkium.lite.ui.driver.lifecycle.BrowserResetStrategy;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * A long-lived local process which owns warm browser sessions and leases
+ * them to test runs, so that repeated runs, e.g. while developing tests,
+ * do not pay for launching a browser.
+ *
+ * <p>Run with {@code java -cp <test classpath>
+ * com.frameworkium.lite.ui.driver.daemon.BrowserDaemon}, with the usual
+ * browser properties, e.g. {@code -Dbrowser=chrome}, then run tests with
+ * {@code -DbrowserDaemon=http://localhost:4445}. The port is set by
+ * {@code browserDaemon.port}.
+ *
+ * <p>Idle sessions are reset, using {@link BrowserResetStrategy#fromProperties()},
+ * when leased, and replaced if the reset fails. Sessions leased for longer
+ * than {@code browserDaemon.leaseTimeout} seconds, e.g. because the test run
+ * was killed, are reclaimed.
+ *
+ * <p>Endpoints, all on localhost only:
+ * <ul>
+ * <li>{@code POST /lease?browser=CHROME} leases a session, returning its
+ *     {@code sessionId}, {@code serverUrl} and {@code capabilities}
+ * <li>{@code POST /release?sessionId=} returns a session to the daemon
+ * <li>{@code POST /discard?sessionId=} quits a session, e.g. one which crashed
+ * <li>{@code GET /status} returns the number of idle and leased sessions
+ * <li>{@code POST /shutdown} quits every session and stops the daemon
+ * </ul>
+ */
+public final class BrowserDaemon {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    public static final int DEFAULT_PORT = 4445;
+    static final Duration DEFAULT_LEASE_TIMEOUT = Duration.ofHours(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Function<Browser, Driver> driverFactory;
+    private final BrowserResetStrategy resetStrategy;
+    private final Duration leaseTimeout;
+
+    private final Map<String, DaemonSession> sessions = new ConcurrentHashMap<>();
+    private final Map<Browser, Deque<DaemonSession>> idleSessions = new EnumMap<>(Browser.class);
+    private HttpServer server;
+
+    /**
+     * @param driverFactory creates and initialises a browser of the given type
+     * @param resetStrategy resets an idle browser before it is leased
+     * @param leaseTimeout  how long before a leased session is reclaimed
+     */
+    public BrowserDaemon(
+            Function<Browser, Driver> driverFactory,
+            BrowserResetStrategy resetStrategy,
+            Duration leaseTimeout) {
+        this.driverFactory = driverFactory;
+        this.resetStrategy = resetStrategy;
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    public static void main(String[] args) throws IOException {
+        var daemon = new BrowserDaemon(
+                DriverSetup::instantiateDriver,
+                BrowserResetStrategy.fromProperties(),
+                Duration.ofSeconds(BROWSER_DAEMON_LEASE_TIMEOUT.getIntWithDefault(
+                        (int) DEFAULT_LEASE_TIMEOUT.toSeconds())));
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop, "browser-daemon-shutdown"));
+        daemon.start(BROWSER_DAEMON_PORT.getIntWithDefault(DEFAULT_PORT));
+    }
+
+    /**
+     * Starts serving on localhost.
+     *
+     * @param port the port, or 0 for any free port
+     * @return the port the daemon is listening on
+     * @throws IOException if the port cannot be bound
+     */
+    public int start(int port) throws IOException {
+        server =
+                HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext(
+                "/lease",
+                exchange -> respond(exchange, () -> {
+                    Browser browser =
+                            Browser.valueOf(queryParameter(exchange, "browser").toUpperCase());
+                    return lease(browser).describe();
+                }));
+        server.createContext(
+                "/release",
+                exchange -> respond(exchange, () -> {
+                    release(queryParameter(exchange, "sessionId"));
+                    return Map.of();
+                }));
+        server.createContext(
+                "/discard",
+                exchange -> respond(exchange, () -> {
+                    discard(queryParameter(exchange, "sessionId"));
+                    return Map.of();
+                }));
+        server.createContext("/status", exchange -> respond(exchange, this::status));
+        server.createContext("/shutdown", exchange -> {
+            respond(exchange, Map::of);
+            new Thread(this::stop, "browser-daemon-shutdown").start();
+        });
+        // browser launches are slow, so do not let them block other requests
+        server.setExecutor(
+                Executors.newCachedThreadPool(new DaemonThreadFactory("browser-daemon")));
+        server.start();
+        logger.info("Browser daemon listening on port {}", server.getAddress().getPort());
+        return server.getAddress().getPort();
+    }
+
+    /** Quits every session and stops serving. */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        sessions.values().forEach(this::quit);
+        sessions.clear();
+        synchronized (idleSessions) {
+            idleSessions.clear();
+        }
+    }
+
+    /**
+     * @param browser the type of browser
+     * @return a reset, idle session, or a new session if none are idle
+     */
+    DaemonSession lease(Browser browser) {
+        reclaimExpiredLeases();
+        while (true) {
+            DaemonSession session = pollIdle(browser);
+            if (session == null) {
+                session = new DaemonSession(browser, driverFactory.apply(browser));
+                sessions.put(session.sessionId, session);
+                logger.info("Launched {} session {}", browser, session.sessionId);
+            } else {
+                try {
+                    resetStrategy.reset(session.driver.getWebDriver());
+                } catch (Exception e) {
+                    logger.warn("Replacing {} session which failed to reset", browser);
+                    logger.debug("Failed to reset session.", e);
+                    discard(session.sessionId);
+                    continue;
+                }
+            }
+            synchronized (idleSessions) {
+                session.leasedSinceNanos = System.nanoTime();
+            }
+            return session;
+        }
+    }
+
+    private DaemonSession pollIdle(Browser browser) {
+        synchronized (idleSessions) {
+            Deque<DaemonSession> idle = idleSessions.get(browser);
+            return idle == null ? null : idle.pollFirst();
+        }
+    }
+
+    /** @param sessionId the session to return to the idle sessions */
+    void release(String sessionId) {
+        DaemonSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new NoSuchElementException("Unknown session " + sessionId);
+        }
+        synchronized (idleSessions) {
+            if (session.leasedSinceNanos == 0) {
+                return; // already released
+            }
+            session.leasedSinceNanos = 0;
+            idleSessions
+                    .computeIfAbsent(session.browser, key -> new ArrayDeque<>())
+                    .addFirst(session);
+        }
+    }
+
+    /** @param sessionId the session to quit and forget */
+    void discard(String sessionId) {
+        DaemonSession session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+        synchronized (idleSessions) {
+            Deque<DaemonSession> idle = idleSessions.get(session.browser);
+            if (idle != null) {
+                idle.remove(session);
+            }
+        }
+        quit(session);
+    }
+
+    private void reclaimExpiredLeases() {
+        long now = System.nanoTime();
+        sessions.values().stream()
+                .filter(session -> session.leasedSinceNanos != 0
+                        && now - session.leasedSinceNanos > leaseTimeout.toNanos())
+                .forEach(session -> {
+                    logger.warn(
+                            "Reclaiming session {} leased for over {}",
+                            session.sessionId,
+                            leaseTimeout);
+                    release(session.sessionId);
+                });
+    }
+
+    private Map<String, Object> status() {
+        int idle;
+        synchronized (idleSessions) {
+            idle = idleSessions.values().stream().mapToInt(Deque::size).sum();
+        }
+        return Map.of("idle", idle, "leased", sessions.size() - idle);
+    }
+
+    private void quit(DaemonSession session) {
+        try {
+            session.driver.getWebDriver().quit();
+        } catch (Exception e) {
+            logger.debug("Failed to quit daemon session.", e);
+        }
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                String[] keyValue = parameter.split("=", 2);
+                if (keyValue.length == 2 && keyValue[0].equals(name)) {
+                    return URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Missing query parameter " + name);
+    }
+
+    private void respond(HttpExchange exchange, ResponseBody body) throws IOException {
+        int status;
+        Object value;
+        try {
+            value = body.get();
+            status = 200;
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            value = Map.of("error", String.valueOf(e.getMessage()));
+            status = 404;
+        } catch (Exception e) {
+            logger.warn("Browser daemon request failed.", e);
+            value = Map.of("error", String.valueOf(e.getMessage()));
+            status = 500;
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(value);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ResponseBody {
+        Object get() throws Exception;
+    }
+
+    /** A browser owned by the daemon. */
+    static final class DaemonSession {
+
+        private final Browser browser;
+        private final Driver driver;
+        private final String sessionId;
+        private final String serverUrl;
+        private final Map<String, Object> capabilities;
+        /** When the session was leased, or 0 if idle; guarded by idleSessions. */
+        private volatile long leasedSinceNanos;
+
+        private DaemonSession(Browser browser, Driver driver) {
+            WebDriver webDriver = DriverUnwrapper.unwrap(driver.getWebDriver());
+            if (!(webDriver instanceof RemoteWebDriver)
+                    || !(((RemoteWebDriver) webDriver).getCommandExecutor()
+                            instanceof HttpCommandExecutor)) {
+                var e = new IllegalStateException(
+                        "Browser daemon requires a RemoteWebDriver, got " + webDriver);
+                try {
+                    driver.getWebDriver().quit();
+                } catch (RuntimeException quitException) {
+                    e.addSuppressed(quitException);
+                }
+                throw e;
+            }
+            var remoteWebDriver = (RemoteWebDriver) webDriver;
+            this.browser = browser;
+            this.driver = driver;
+            this.sessionId = remoteWebDriver.getSessionId().toString();
+            this.serverUrl = ((HttpCommandExecutor) remoteWebDriver.getCommandExecutor())
+                    .getAddressOfRemoteServer()
+                    .toString();
+            this.capabilities = remoteWebDriver.getCapabilities().asMap();
+        }
+
+        Map<String, Object> describe() {
+            return Map.of(
+                    "sessionId", sessionId, "serverUrl", serverUrl, "capabilities", capabilities);
+        }
+    }
+}
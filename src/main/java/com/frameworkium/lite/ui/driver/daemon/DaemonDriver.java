@@ -0,0 +1,54 @@
+package com.frameworkium.lite.ui.driver.daemon;
+
+import com.frameworkium.lite.ui.driver.AbstractDriver;
+
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * A {@link com.frameworkium.lite.ui.driver.Driver} attached to a browser
+ * session leased from the {@link BrowserDaemon}. Calling {@code quit()}
+ * releases the session back to the daemon.
+ */
+public class DaemonDriver extends AbstractDriver {
+
+    private final URL serverUrl;
+    private final String sessionId;
+    private final Map<String, Object> capabilities;
+    private final Runnable onQuit;
+
+    /**
+     * @param serverUrl    the address of the driver service running the session
+     * @param sessionId    the leased session's id
+     * @param capabilities the leased session's capabilities
+     * @param onQuit       releases the session back to the daemon
+     */
+    public DaemonDriver(
+            URL serverUrl, String sessionId, Map<String, Object> capabilities, Runnable onQuit) {
+        this.serverUrl = serverUrl;
+        this.sessionId = sessionId;
+        this.capabilities = capabilities;
+        this.onQuit = onQuit;
+    }
+
+    @Override
+    public Capabilities getCapabilities() {
+        return new ImmutableCapabilities(capabilities);
+    }
+
+    @Override
+    public WebDriver getWebDriver(Capabilities capabilities) {
+        return new RemoteWebDriver(
+                new AttachingCommandExecutor(serverUrl, sessionId, this.capabilities, onQuit),
+                capabilities);
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+}
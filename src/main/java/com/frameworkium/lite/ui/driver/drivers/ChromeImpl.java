@@ -6,8 +6,11 @@ import com.frameworkium.lite.ui.driver.AbstractDriver;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 
+import java.nio.file.Path;
+
 public class ChromeImpl extends AbstractDriver {
 
     @Override
@@ -16,7 +19,7 @@ public class ChromeImpl extends AbstractDriver {
         if (Property.HEADLESS.getBoolean()) {
             chromeOptions.addArguments("--headless=new");
         }
-        return chromeOptions;
+        return PerformanceProfile.fromProperties().applyTo(chromeOptions);
     }
 
     @Override
@@ -27,6 +30,24 @@ public class ChromeImpl extends AbstractDriver {
         } else {
             chromeOptions = new ChromeOptions().merge(capabilities);
         }
+        PerformanceProfile.fromProperties()
+                .applyDiskCacheTo(chromeOptions)
+                .ifPresent(lease -> onQuit(lease::release));
+        if (ProfileTemplate.isConfigured()) {
+            Path profile = ProfileTemplate.fromProperties().cloneProfile();
+            onQuit(() -> ProfileTemplate.deleteClone(profile));
+            chromeOptions.addArguments("--user-data-dir=" + profile);
+        }
+        if (Property.SHARED_DRIVER_SERVICE.getBoolean()) {
+            return new ChromeDriver(SharedDriverServices.chrome(), chromeOptions);
+        }
+        if (isIsolationRequired()) {
+            var service = startIsolatedService(
+                    ChromeDriverService.createDefaultService(),
+                    chromeOptions,
+                    chromeOptions::setBinary);
+            return new ChromeDriver(service, chromeOptions);
+        }
         return new ChromeDriver(chromeOptions);
     }
 }
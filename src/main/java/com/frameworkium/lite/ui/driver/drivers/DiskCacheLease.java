@@ -0,0 +1,103 @@
+package com.frameworkium.lite.ui.driver.drivers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One browser's disk cache directory, {@code slot-<n>} under a parent
+ * directory, which no other browser uses at the same time.
+ *
+ * <p>Neither the Chromium nor the Firefox disk cache is safe for several
+ * browsers at once, so each running browser leases its own slot. A slot is
+ * locked, using a {@code slot-<n>.lock} file, until its browser quits, so
+ * browsers in other JVMs, e.g. other forks of the same suite, skip it too.
+ * Later browsers reuse free slots, so they start with a warm cache. There are
+ * never more slots than browsers running at once.
+ */
+public final class DiskCacheLease {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /**
+     * Slots leased in this JVM. These are skipped rather than locked again,
+     * because closing a channel releases the JVM's other locks on the file.
+     */
+    private static final Set<Path> leasedSlots = ConcurrentHashMap.newKeySet();
+
+    private final Path directory;
+    private final FileChannel lockChannel;
+
+    private DiskCacheLease(Path directory, FileChannel lockChannel) {
+        this.directory = directory;
+        this.lockChannel = lockChannel;
+    }
+
+    /**
+     * @param parent the directory holding the cache slots, created if required
+     * @return a lease of the first free slot, which must be released when
+     *         its browser quits
+     * @throws UncheckedIOException if no slot can be created or locked
+     */
+    public static DiskCacheLease acquire(Path parent) {
+        try {
+            Files.createDirectories(parent);
+            for (int slot = 0; ; slot++) {
+                Path directory = parent.resolve("slot-" + slot);
+                if (!leasedSlots.add(directory)) {
+                    continue;
+                }
+                DiskCacheLease lease = tryLock(directory);
+                if (lease != null) {
+                    return lease;
+                }
+                leasedSlots.remove(directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DiskCacheLease tryLock(Path directory) throws IOException {
+        Path lockFile = directory.resolveSibling(directory.getFileName() + ".lock");
+        var channel =
+                FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                channel.close();
+                return null;
+            }
+            Files.createDirectories(directory);
+            return new DiskCacheLease(directory, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** @return the cache directory, for this lease's browser only */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Frees the slot for later browsers, keeping its cache. */
+    public void release() {
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            logger.debug("Failed to unlock disk cache {}", directory, e);
+        } finally {
+            leasedSlots.remove(directory);
+        }
+    }
+}
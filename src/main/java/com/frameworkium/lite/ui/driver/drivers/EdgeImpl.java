@@ -1,17 +1,21 @@
 package com.frameworkium.lite.ui.driver.drivers;
 
+import com.frameworkium.lite.common.properties.Property;
 import com.frameworkium.lite.ui.driver.AbstractDriver;
 
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeDriverService;
 import org.openqa.selenium.edge.EdgeOptions;
 
+import java.nio.file.Path;
+
 public class EdgeImpl extends AbstractDriver {
 
     @Override
     public EdgeOptions getCapabilities() {
-        return new EdgeOptions();
+        return PerformanceProfile.fromProperties().applyTo(new EdgeOptions());
     }
 
     @Override
@@ -22,6 +26,22 @@ public class EdgeImpl extends AbstractDriver {
         } else {
             edgeOptions = new EdgeOptions().merge(capabilities);
         }
+        PerformanceProfile.fromProperties()
+                .applyDiskCacheTo(edgeOptions)
+                .ifPresent(lease -> onQuit(lease::release));
+        if (ProfileTemplate.isConfigured()) {
+            Path profile = ProfileTemplate.fromProperties().cloneProfile();
+            onQuit(() -> ProfileTemplate.deleteClone(profile));
+            edgeOptions.addArguments("--user-data-dir=" + profile);
+        }
+        if (Property.SHARED_DRIVER_SERVICE.getBoolean()) {
+            return new EdgeDriver(SharedDriverServices.edge(), edgeOptions);
+        }
+        if (isIsolationRequired()) {
+            var service = startIsolatedService(
+                    EdgeDriverService.createDefaultService(), edgeOptions, edgeOptions::setBinary);
+            return new EdgeDriver(service, edgeOptions);
+        }
         return new EdgeDriver(edgeOptions);
     }
 }
@@ -7,6 +7,8 @@ import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.firefox.*;
 
+import java.nio.file.Path;
+
 public class FirefoxImpl extends AbstractDriver {
 
     @Override
@@ -16,7 +18,7 @@ public class FirefoxImpl extends AbstractDriver {
             firefoxOptions.addArguments("--headless");
         }
         firefoxOptions.setLogLevel(FirefoxDriverLogLevel.INFO);
-        return firefoxOptions;
+        return PerformanceProfile.fromProperties().applyTo(firefoxOptions);
     }
 
     @Override
@@ -27,6 +29,22 @@ public class FirefoxImpl extends AbstractDriver {
         } else {
             firefoxOptions = new FirefoxOptions().merge(capabilities);
         }
+        PerformanceProfile.fromProperties()
+                .applyDiskCacheTo(firefoxOptions)
+                .ifPresent(lease -> onQuit(lease::release));
+        if (ProfileTemplate.isConfigured()) {
+            Path profile = ProfileTemplate.fromProperties().cloneProfile();
+            onQuit(() -> ProfileTemplate.deleteClone(profile));
+            // geckodriver uses a -profile directory in place, rather than copying it
+            firefoxOptions.addArguments("-profile", profile.toString());
+        }
+        if (isIsolationRequired()) {
+            var service = startIsolatedService(
+                    GeckoDriverService.createDefaultService(),
+                    firefoxOptions,
+                    firefoxOptions::setBinary);
+            return new FirefoxDriver(service, firefoxOptions);
+        }
         return new FirefoxDriver(firefoxOptions);
     }
 }
@@ -0,0 +1,250 @@
+package com.frameworkium.lite.ui.driver.drivers;
+
+import static com.frameworkium.lite.common.properties.Property.*;
+
+import com.frameworkium.lite.common.metrics.TimingStats;
+
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.path.json.JsonPath;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriverException;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for new Grid sessions, so a large parallel run does not
+ * flood the Grid's new session queue.
+ *
+ * <p>At most {@code grid.maxPendingSessions} session requests are in flight
+ * at once. Before each request, Grid {@code /status} is polled until it has
+ * a free slot for the browser, backing off with jitter, for up to
+ * {@code grid.admissionTimeout} seconds, after which the request is sent
+ * anyway for the Grid to queue. If the status cannot be read, requests are
+ * not delayed.
+ *
+ * <p>How long sessions waited for admission, and then took to create, is
+ * logged by {@link #logStatistics()} to help size the number of threads to
+ * the Grid's capacity.
+ */
+public final class GridAdmission {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final Duration MIN_BACKOFF = Duration.ofMillis(250);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(10);
+    private static final int STATUS_TIMEOUT_MILLIS = 5000;
+
+    private static final Map<URL, GridAdmission> GRIDS = new ConcurrentHashMap<>();
+
+    private final URL statusUrl;
+    private final Duration admissionTimeout;
+    private final Semaphore sessionRequests;
+
+    /** Admitted requests which may not yet occupy a slot. Guarded by this. */
+    private int admittedRequests;
+
+    private final TimingStats admissionWaits = new TimingStats("Grid session admission waits");
+    private final TimingStats sessionCreations = new TimingStats("Grid session creations");
+
+    /**
+     * @param gridUrl            the URL of the Grid
+     * @param maxPendingSessions the maximum number of session requests in flight
+     * @param admissionTimeout   the maximum time to wait for a free slot
+     */
+    GridAdmission(URL gridUrl, int maxPendingSessions, Duration admissionTimeout) {
+        this.statusUrl = statusUrl(gridUrl);
+        this.admissionTimeout = admissionTimeout;
+        this.sessionRequests = new Semaphore(maxPendingSessions, true);
+    }
+
+    private static URL statusUrl(URL gridUrl) {
+        try {
+            return new URL(gridUrl, StringUtils.removeEnd(gridUrl.getPath(), "/") + "/status");
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * @param gridUrl the URL of the Grid
+     * @return the admission control for the Grid, configured from the
+     *         {@code grid.*} properties
+     */
+    public static GridAdmission forGrid(URL gridUrl) {
+        return GRIDS.computeIfAbsent(
+                gridUrl,
+                url -> new GridAdmission(
+                        url,
+                        GRID_MAX_PENDING_SESSIONS.getIntWithDefault(THREADS.getIntWithDefault(1)),
+                        Duration.ofSeconds(GRID_ADMISSION_TIMEOUT.getIntWithDefault(300))));
+    }
+
+    /** Logs the admission waits and session creation times of every Grid used. */
+    public static void logStatistics() {
+        GRIDS.values()
+                .forEach(grid -> logger.info(
+                        "{}: {}; {}", grid.statusUrl, grid.admissionWaits, grid.sessionCreations));
+    }
+
+    /**
+     * Waits for the Grid to have capacity, then creates the session.
+     *
+     * @param browserName    the browser name of the session's capabilities
+     * @param sessionCreator sends the new session request
+     * @return the session
+     * @throws WebDriverException if a session request could not be sent
+     *                            within the admission timeout
+     */
+    public <T> T createSession(String browserName, Supplier<T> sessionCreator) {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + admissionTimeout.toNanos();
+        acquireSessionRequest();
+        try {
+            awaitFreeSlot(browserName, deadlineNanos);
+            admissionWaits.record(Duration.ofNanos(System.nanoTime() - startNanos));
+            return sessionCreations.time(sessionCreator);
+        } finally {
+            synchronized (this) {
+                admittedRequests--;
+            }
+            sessionRequests.release();
+        }
+    }
+
+    private void acquireSessionRequest() {
+        try {
+            if (!sessionRequests.tryAcquire(admissionTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new WebDriverException(
+                        "No Grid session request could be sent within " + admissionTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted waiting to request a Grid session", e);
+        }
+    }
+
+    private void awaitFreeSlot(String browserName, long deadlineNanos) {
+        for (int attempt = 0; !tryAdmit(browserName); attempt++) {
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                logger.warn(
+                        "No free Grid slot after {}, requesting session anyway", admissionTimeout);
+                forceAdmit();
+                return;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, backoffNanos(attempt)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                forceAdmit();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Polls the Grid status without holding the lock, so one slow poll does
+     * not block other requests' admission.
+     *
+     * @return true, having reserved a slot, if one is free and not reserved by another request
+     */
+    private boolean tryAdmit(String browserName) {
+        return tryReserve(readFreeSlots(browserName));
+    }
+
+    /**
+     * @param freeSlots the free slots read from the Grid status, empty if unknown
+     * @return true, having reserved a slot, if one is free and not reserved by another request
+     */
+    synchronized boolean tryReserve(OptionalInt freeSlots) {
+        if (freeSlots.isPresent() && freeSlots.getAsInt() <= admittedRequests) {
+            return false;
+        }
+        admittedRequests++;
+        return true;
+    }
+
+    private synchronized void forceAdmit() {
+        admittedRequests++;
+    }
+
+    /** @return a random backoff, with an upper bound which doubles each attempt */
+    private static long backoffNanos(int attempt) {
+        long maxNanos =
+                Math.min(MAX_BACKOFF.toNanos(), MIN_BACKOFF.toNanos() << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(MIN_BACKOFF.toNanos(), maxNanos + 1);
+    }
+
+    private OptionalInt readFreeSlots(String browserName) {
+        try {
+            JsonPath status = RestAssured.given()
+                    .config(RestAssuredConfig.config()
+                            .httpClient(HttpClientConfig.httpClientConfig()
+                                    .setParam("http.connection.timeout", STATUS_TIMEOUT_MILLIS)
+                                    .setParam("http.socket.timeout", STATUS_TIMEOUT_MILLIS)))
+                    .relaxedHTTPSValidation()
+                    .get(statusUrl)
+                    .then()
+                    .statusCode(200)
+                    .extract()
+                    .jsonPath();
+            return countFreeSlots(status, browserName);
+        } catch (Exception | AssertionError e) {
+            logger.debug("Unable to read Grid status from {}", statusUrl, e);
+            return OptionalInt.empty();
+        }
+    }
+
+    /**
+     * @param status      the response to Grid {@code /status}
+     * @param browserName the browser required, blank for any
+     * @return the number of free slots for the browser on available nodes,
+     *         empty if the response does not list nodes, e.g. an older Grid
+     */
+    @SuppressWarnings("unchecked")
+    static OptionalInt countFreeSlots(JsonPath status, String browserName) {
+        List<Map<String, Object>> nodes = status.getList("value.nodes");
+        if (nodes == null) {
+            return OptionalInt.empty();
+        }
+        int freeSlots = 0;
+        for (Map<String, Object> node : nodes) {
+            if (!"UP".equals(node.get("availability"))) {
+                continue;
+            }
+            for (Map<String, Object> slot : (List<Map<String, Object>>) node.get("slots")) {
+                var stereotype = (Map<String, Object>) slot.get("stereotype");
+                if (slot.get("session") == null
+                        && (StringUtils.isBlank(browserName)
+                                || browserName.equalsIgnoreCase(
+                                        (String) stereotype.get("browserName")))) {
+                    freeSlots++;
+                }
+            }
+        }
+        return OptionalInt.of(freeSlots);
+    }
+
+    public TimingStats getAdmissionWaits() {
+        return admissionWaits;
+    }
+
+    public TimingStats getSessionCreations() {
+        return sessionCreations;
+    }
+}
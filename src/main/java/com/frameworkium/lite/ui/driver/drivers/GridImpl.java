@@ -1,6 +1,7 @@
 package com.frameworkium.lite.ui.driver.drivers;
 
 import static com.frameworkium.lite.common.properties.Property.BROWSER_VERSION;
+import static com.frameworkium.lite.common.properties.Property.GRID_ADMISSION_CONTROL;
 import static com.frameworkium.lite.common.properties.Property.REMOTE_OTEL_TRACING;
 
 import com.frameworkium.lite.common.properties.Property;
@@ -12,6 +13,7 @@ import org.openqa.selenium.remote.RemoteWebDriver;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.function.Supplier;
 
 public class GridImpl extends AbstractDriver {
 
@@ -41,8 +43,12 @@ public class GridImpl extends AbstractDriver {
 
     @Override
     public WebDriver getWebDriver(Capabilities capabilities) {
-        var remoteWebDriver =
+        Supplier<RemoteWebDriver> sessionCreator = () ->
                 new RemoteWebDriver(remoteURL, capabilities, REMOTE_OTEL_TRACING.getBoolean());
+        var remoteWebDriver = GRID_ADMISSION_CONTROL.getBoolean()
+                ? GridAdmission.forGrid(remoteURL)
+                        .createSession(capabilities.getBrowserName(), sessionCreator)
+                : sessionCreator.get();
         // Set local file detector to allow file uploads to work in FileInput
         remoteWebDriver.setFileDetector(new LocalFileDetector());
         return remoteWebDriver;
@@ -0,0 +1,144 @@
+package com.frameworkium.lite.ui.driver.drivers;
+
+import static com.frameworkium.lite.common.properties.Property.*;
+
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.firefox.FirefoxOptions;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Browser flags and preferences which cut the time and CPU each test spends
+ * in the browser, by turning off background work that tests do not need,
+ * e.g. extensions, sync, updates, background throttling and smooth scrolling.
+ * The window is a fixed size so that layouts are consistent.
+ *
+ * <p>Images can also be blocked and, so browsers reuse cached resources, the
+ * disk cache can be kept under a directory, in which each running browser
+ * leases its own cache, see {@link DiskCacheLease}. These can be used without
+ * the rest of the profile.
+ *
+ * <p>Enabled by {@code performanceProfile=true}, {@code blockImages=true} and
+ * {@code diskCacheDir=/path/to/cache} respectively.
+ */
+public final class PerformanceProfile {
+
+    private static final int WINDOW_WIDTH = 1920;
+    private static final int WINDOW_HEIGHT = 1080;
+
+    private static final List<String> CHROMIUM_ARGUMENTS = List.of(
+            "--disable-background-networking",
+            "--disable-background-timer-throttling",
+            "--disable-backgrounding-occluded-windows",
+            "--disable-renderer-backgrounding",
+            "--disable-breakpad",
+            "--disable-component-update",
+            "--disable-default-apps",
+            "--disable-extensions",
+            "--disable-sync",
+            "--disable-smooth-scrolling",
+            "--disable-features=Translate,MediaRouter,OptimizationHints",
+            "--metrics-recording-only",
+            "--mute-audio",
+            "--no-default-browser-check",
+            "--no-first-run",
+            "--window-size=" + WINDOW_WIDTH + "," + WINDOW_HEIGHT);
+
+    private static final Map<String, Object> FIREFOX_PREFERENCES = Map.ofEntries(
+            Map.entry("app.update.auto", false),
+            Map.entry("browser.shell.checkDefaultBrowser", false),
+            Map.entry("browser.startup.homepage_override.mstone", "ignore"),
+            Map.entry("browser.sessionstore.resume_from_crash", false),
+            Map.entry("browser.safebrowsing.malware.enabled", false),
+            Map.entry("browser.safebrowsing.phishing.enabled", false),
+            Map.entry("datareporting.policy.dataSubmissionEnabled", false),
+            Map.entry("toolkit.telemetry.enabled", false),
+            Map.entry("extensions.update.enabled", false),
+            Map.entry("general.smoothScroll", false),
+            Map.entry("media.volume_scale", "0.0"));
+
+    private final boolean enabled;
+    private final boolean blockImages;
+    private final String diskCacheDir;
+
+    /**
+     * @param enabled      whether to apply the performance flags and preferences
+     * @param blockImages  whether to stop images loading
+     * @param diskCacheDir the directory for browsers' disk caches, or null
+     *                     for the browser's default
+     */
+    public PerformanceProfile(boolean enabled, boolean blockImages, String diskCacheDir) {
+        this.enabled = enabled;
+        this.blockImages = blockImages;
+        this.diskCacheDir = diskCacheDir;
+    }
+
+    /** @return the profile from the {@code performanceProfile}, {@code blockImages} and {@code diskCacheDir} properties */
+    public static PerformanceProfile fromProperties() {
+        return new PerformanceProfile(
+                PERFORMANCE_PROFILE.getBoolean(),
+                BLOCK_IMAGES.getBoolean(),
+                DISK_CACHE_DIR.isSpecified() ? DISK_CACHE_DIR.getValue() : null);
+    }
+
+    /**
+     * @param options Chrome or Edge options
+     * @return the options, with this profile's arguments added
+     */
+    public <T extends ChromiumOptions<?>> T applyTo(T options) {
+        if (enabled) {
+            options.addArguments(CHROMIUM_ARGUMENTS);
+        }
+        if (blockImages) {
+            options.addArguments("--blink-settings=imagesEnabled=false");
+        }
+        return options;
+    }
+
+    /**
+     * @param options Chrome or Edge options, of a browser about to be launched
+     * @return the lease of the browser's own disk cache directory, which must
+     *         be released when it quits, if {@code diskCacheDir} is set
+     */
+    public Optional<DiskCacheLease> applyDiskCacheTo(ChromiumOptions<?> options) {
+        Optional<DiskCacheLease> lease = leaseDiskCache();
+        lease.ifPresent(cache -> options.addArguments("--disk-cache-dir=" + cache.getDirectory()));
+        return lease;
+    }
+
+    /**
+     * @param options Firefox options
+     * @return the options, with this profile's arguments and preferences added
+     */
+    public FirefoxOptions applyTo(FirefoxOptions options) {
+        if (enabled) {
+            FIREFOX_PREFERENCES.forEach(options::addPreference);
+            options.addArguments("--width=" + WINDOW_WIDTH, "--height=" + WINDOW_HEIGHT);
+        }
+        if (blockImages) {
+            options.addPreference("permissions.default.image", 2);
+        }
+        return options;
+    }
+
+    /**
+     * @param options Firefox options, of a browser about to be launched
+     * @return the lease of the browser's own disk cache directory, which must
+     *         be released when it quits, if {@code diskCacheDir} is set
+     */
+    public Optional<DiskCacheLease> applyDiskCacheTo(FirefoxOptions options) {
+        Optional<DiskCacheLease> lease = leaseDiskCache();
+        lease.ifPresent(cache -> options.addPreference(
+                "browser.cache.disk.parent_directory", cache.getDirectory().toString()));
+        return lease;
+    }
+
+    private Optional<DiskCacheLease> leaseDiskCache() {
+        return diskCacheDir == null
+                ? Optional.empty()
+                : Optional.of(DiskCacheLease.acquire(Path.of(diskCacheDir)));
+    }
+}
@@ -0,0 +1,146 @@
+package com.frameworkium.lite.ui.driver.drivers;
+
+import static com.frameworkium.lite.common.properties.Property.PROFILE_TEMPLATE;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * A prepared browser profile directory, e.g. with warm caches and preset
+ * preferences, which is cloned for each new local browser so that it avoids
+ * creating a profile and starts with a warm HTTP cache.
+ *
+ * <p>Every file is copied, lock files excepted. Files are never hard-linked,
+ * not even cache entries, because browsers update cache entries and their
+ * indexes in place, so concurrent browsers writing to a shared file would
+ * corrupt each other's caches and the template. Cloning time therefore grows
+ * with the size of the template, so keep its cache to the resources tests
+ * need.
+ *
+ * <p>Enabled by {@code profileTemplate=/path/to/profile}. Clones are deleted
+ * when their browser quits, or failing that when the JVM exits.
+ */
+public final class ProfileTemplate {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Files which mark a profile as in use by a running browser. */
+    private static final Set<String> LOCK_FILES = Set.of(
+            "SingletonLock",
+            "SingletonSocket",
+            "SingletonCookie",
+            "lock",
+            ".parentlock",
+            "parent.lock");
+
+    private static final Set<Path> liveClones = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime()
+                .addShutdownHook(new Thread(
+                        () -> liveClones.forEach(ProfileTemplate::deleteClone),
+                        "profile-template-cleanup"));
+    }
+
+    private final Path template;
+
+    /**
+     * @param template the profile directory to clone
+     * @throws IllegalArgumentException if template is not a directory
+     */
+    public ProfileTemplate(Path template) {
+        if (!Files.isDirectory(template)) {
+            throw new IllegalArgumentException(
+                    "Profile template '" + template + "' is not a directory.");
+        }
+        this.template = template;
+    }
+
+    /** @return true if {@code profileTemplate} is set */
+    public static boolean isConfigured() {
+        return PROFILE_TEMPLATE.isSpecified();
+    }
+
+    /** @return the template from the {@code profileTemplate} property */
+    public static ProfileTemplate fromProperties() {
+        return new ProfileTemplate(Paths.get(PROFILE_TEMPLATE.getValue()));
+    }
+
+    /**
+     * @return a new temporary directory containing a clone of the template,
+     *         which should be passed to {@link #deleteClone(Path)} when finished with
+     * @throws UncheckedIOException if the template cannot be cloned
+     */
+    public Path cloneProfile() {
+        long start = System.nanoTime();
+        Path clone;
+        try {
+            clone = Files.createTempDirectory("frameworkium-profile-");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        liveClones.add(clone);
+        try (Stream<Path> paths = Files.walk(template)) {
+            for (Path source : (Iterable<Path>) paths::iterator) {
+                cloneEntry(source, clone.resolve(template.relativize(source).toString()));
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteClone(clone);
+            throw e instanceof IOException
+                    ? new UncheckedIOException((IOException) e)
+                    : (RuntimeException) e;
+        }
+        logger.debug(
+                "Cloned profile template to {} in {}ms",
+                clone,
+                (System.nanoTime() - start) / 1_000_000);
+        return clone;
+    }
+
+    private void cloneEntry(Path source, Path target) throws IOException {
+        if (Files.isSymbolicLink(source) || isLockFile(source)) {
+            return;
+        }
+        if (Files.isDirectory(source)) {
+            Files.createDirectories(target);
+        } else {
+            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    private boolean isLockFile(Path source) {
+        return LOCK_FILES.contains(source.getFileName().toString());
+    }
+
+    /**
+     * Deletes a clone created by {@link #cloneProfile()}, logging any failure.
+     *
+     * @param clone the cloned profile directory
+     */
+    public static void deleteClone(Path clone) {
+        liveClones.remove(clone);
+        if (!Files.exists(clone)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(clone)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Failed to delete cloned browser profile {}", clone);
+            logger.debug("Failed to delete cloned browser profile.", e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.frameworkium.lite.ui.driver.drivers;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.edge.EdgeDriverService;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.remote.service.DriverFinder;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * One long-lived chromedriver and msedgedriver process, each shared by every
+ * Chrome or Edge session, rather than one driver process per session.
+ *
+ * <p>Selenium stops a driver service when its session quits, so the shared
+ * services ignore {@link DriverService#stop()} and are only stopped by
+ * {@link #stopAll()}, or when the JVM exits.
+ *
+ * <p>Firefox is not supported because geckodriver only runs one session.
+ */
+public final class SharedDriverServices {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    static final String CHROME = "chromedriver";
+    static final String EDGE = "msedgedriver";
+
+    /** The running services, by driver name. Guarded by the class. */
+    private static final Map<String, SharedService> services = new LinkedHashMap<>();
+
+    private static boolean shutdownHookAdded;
+
+    private SharedDriverServices() {
+        // hidden
+    }
+
+    /** @return the running, shared chromedriver service */
+    public static synchronized ChromeDriverService chrome() {
+        return shared(CHROME, () -> {
+            var chromeService = (SharedChromeDriverService)
+                    new ChromeDriverService.Builder() {
+                        @Override
+                        protected ChromeDriverService createDriverService(
+                                File exe,
+                                int port,
+                                Duration timeout,
+                                List<String> args,
+                                Map<String, String> environment) {
+                            try {
+                                return new SharedChromeDriverService(
+                                        exe, port, timeout, args, environment);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    }.usingAnyFreePort().build();
+            start(chromeService, new ChromeOptions());
+            return chromeService;
+        });
+    }
+
+    /** @return the running, shared msedgedriver service */
+    public static synchronized EdgeDriverService edge() {
+        return shared(EDGE, () -> {
+            var edgeService = (SharedEdgeDriverService)
+                    new EdgeDriverService.Builder() {
+                        @Override
+                        protected EdgeDriverService createDriverService(
+                                File exe,
+                                int port,
+                                Duration timeout,
+                                List<String> args,
+                                Map<String, String> environment) {
+                            try {
+                                return new SharedEdgeDriverService(
+                                        exe, port, timeout, args, environment);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                    }.usingAnyFreePort().build();
+            start(edgeService, new EdgeOptions());
+            return edgeService;
+        });
+    }
+
+    /**
+     * @param name    the driver name, one service is shared per name
+     * @param starter creates and starts the service, if none is running
+     * @return the running service
+     */
+    @SuppressWarnings("unchecked")
+    static synchronized <T extends SharedService> T shared(String name, Supplier<T> starter) {
+        SharedService service = services.get(name);
+        if (service == null) {
+            service = starter.get();
+            services.put(name, service);
+            if (!shutdownHookAdded) {
+                Runtime.getRuntime()
+                        .addShutdownHook(
+                                new Thread(SharedDriverServices::stopAll, "driver-service-stop"));
+                shutdownHookAdded = true;
+            }
+        }
+        return (T) service;
+    }
+
+    private static void start(DriverService service, Capabilities capabilities) {
+        if (service.getExecutable() == null) {
+            service.setExecutable(new DriverFinder(service, capabilities).getDriverPath());
+        }
+        try {
+            service.start();
+        } catch (IOException e) {
+            throw new WebDriverException("Failed to start shared driver service", e);
+        }
+        logger.debug("Started shared driver service at {}", service.getUrl());
+    }
+
+    /** Stops the shared services, which are restarted if required again. */
+    public static synchronized void stopAll() {
+        services.values().forEach(SharedService::stopShared);
+        services.clear();
+    }
+
+    /** A driver service which outlives its sessions. */
+    interface SharedService {
+
+        /** Stops the service, which {@link DriverService#stop()} does not. */
+        void stopShared();
+    }
+
+    static final class SharedChromeDriverService extends ChromeDriverService
+            implements SharedService {
+
+        SharedChromeDriverService(
+                File exe,
+                int port,
+                Duration timeout,
+                List<String> args,
+                Map<String, String> environment)
+                throws IOException {
+            super(exe, port, timeout, args, environment);
+        }
+
+        /** Ignored when a session quits, the service outlives its sessions. */
+        @Override
+        public void stop() {}
+
+        @Override
+        public void stopShared() {
+            super.stop();
+        }
+    }
+
+    static final class SharedEdgeDriverService extends EdgeDriverService implements SharedService {
+
+        SharedEdgeDriverService(
+                File exe,
+                int port,
+                Duration timeout,
+                List<String> args,
+                Map<String, String> environment)
+                throws IOException {
+            super(exe, port, timeout, args, environment);
+        }
+
+        /** Ignored when a session quits, the service outlives its sessions. */
+        @Override
+        public void stop() {}
+
+        @Override
+        public void stopShared() {
+            super.stop();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import static com.frameworkium.lite.common.properties.Property.BROWSER_RESET;
+import static com.frameworkium.lite.common.properties.Property.BROWSER_RESET_CLEAR_CACHE;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Clears the state left by a test before a browser is returned to the pool
+ * by {@link MultiUseDriverLifecycle#tearDownDriver()}.
+ *
+ * <p>If {@link #reset(WebDriver)} throws, the browser is replaced.
+ */
+@FunctionalInterface
+public interface BrowserResetStrategy {
+
+    /** Only deletes the cookies of the current domain. */
+    BrowserResetStrategy COOKIES_ONLY = webDriver -> webDriver.manage().deleteAllCookies();
+
+    /** @param webDriver the browser to reset, ready for the next test */
+    void reset(WebDriver webDriver);
+
+    /**
+     * @return {@link #COOKIES_ONLY} if {@code browserReset=cookies}, otherwise
+     *         a {@link FullStateReset}
+     */
+    static BrowserResetStrategy fromProperties() {
+        if (BROWSER_RESET.isSpecified() && "cookies".equalsIgnoreCase(BROWSER_RESET.getValue())) {
+            return COOKIES_ONLY;
+        }
+        return new FullStateReset(BROWSER_RESET_CLEAR_CACHE.getBoolean());
+    }
+}
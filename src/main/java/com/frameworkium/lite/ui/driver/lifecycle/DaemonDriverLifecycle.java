@@ -0,0 +1,117 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import com.frameworkium.lite.ui.context.TestContext;
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser;
+import com.frameworkium.lite.ui.driver.daemon.BrowserDaemon;
+import com.frameworkium.lite.ui.driver.daemon.DaemonDriver;
+
+import io.restassured.RestAssured;
+import io.restassured.path.json.JsonPath;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Leases each test's browser from a {@link BrowserDaemon} and releases it
+ * back after the test, so browsers stay warm across test runs, i.e. JVMs.
+ *
+ * <p>Enabled by {@code browserDaemon=http://localhost:4445}.
+ *
+ * @see DriverLifecycle
+ */
+public class DaemonDriverLifecycle implements DriverLifecycle {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private final TestContext.Key<DaemonDriver> currentDriver =
+            new TestContext.Key<>("daemon driver");
+
+    private final String daemonUrl;
+    private final Browser browser;
+
+    /**
+     * @param daemonUrl the address of the {@link BrowserDaemon}
+     * @param browser   the type of browser to lease
+     */
+    public DaemonDriverLifecycle(String daemonUrl, Browser browser) {
+        this.daemonUrl = daemonUrl;
+        this.browser = browser;
+    }
+
+    /** Leases a reset browser from the daemon for the current thread. */
+    @Override
+    public void initBrowserBeforeTest() {
+        JsonPath lease = RestAssured.given()
+                .baseUri(daemonUrl)
+                .queryParam("browser", browser.name())
+                .post("/lease")
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath();
+        String sessionId = lease.getString("sessionId");
+        Map<String, Object> capabilities = lease.getMap("capabilities");
+        URL serverUrl;
+        try {
+            serverUrl = new URL(lease.getString("serverUrl"));
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        var driver = new DaemonDriver(
+                serverUrl, sessionId, capabilities, () -> post("/release", sessionId));
+        driver.initialise();
+        TestContext.current().set(currentDriver, driver);
+    }
+
+    @Override
+    public WebDriver getWebDriver() {
+        DaemonDriver driver = TestContext.current().get(currentDriver);
+        if (driver == null) {
+            return null;
+        }
+        return driver.getWebDriver();
+    }
+
+    /** Releases the current thread's browser back to the daemon. */
+    @Override
+    public void tearDownDriver() {
+        try {
+            // quitting a DaemonDriver releases it
+            getWebDriver().quit();
+        } catch (Exception e) {
+            logger.warn("Failed to release browser to the daemon.");
+            logger.debug("Failed to release browser to the daemon.", e);
+        } finally {
+            TestContext.current().remove(currentDriver);
+        }
+    }
+
+    /** Asks the daemon to quit the current thread's browser, e.g. after a crash. */
+    @Override
+    public void reinitialiseCurrentDriver() {
+        DaemonDriver driver = TestContext.current().get(currentDriver);
+        TestContext.current().remove(currentDriver);
+        if (driver == null) {
+            return;
+        }
+        try {
+            post("/discard", driver.getSessionId());
+        } catch (Exception e) {
+            logger.warn("Failed to discard browser in the daemon.", e);
+        }
+    }
+
+    private void post(String path, String sessionId) {
+        RestAssured.given()
+                .baseUri(daemonUrl)
+                .queryParam("sessionId", sessionId)
+                .post(path)
+                .then()
+                .statusCode(200);
+    }
+}
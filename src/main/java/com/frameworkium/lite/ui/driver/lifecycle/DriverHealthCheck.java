@@ -0,0 +1,58 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.frameworkium.lite.common.concurrent.DaemonThreadFactory;
+import com.frameworkium.lite.ui.driver.DriverUnwrapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Checks a browser is responding by requesting its current window handle,
+ * giving up after a timeout so a hung browser cannot block the caller.
+ */
+final class DriverHealthCheck {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private final Duration timeout;
+    private final ExecutorService probeExecutor =
+            Executors.newCachedThreadPool(new DaemonThreadFactory("driver-health-check"));
+
+    DriverHealthCheck(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param webDriver the browser to check, undecorated so that listeners
+     *                  do not log or capture the check
+     * @return false if the browser failed to respond within the timeout
+     */
+    boolean isAlive(WebDriver webDriver) {
+        Future<String> probe =
+                probeExecutor.submit(() -> DriverUnwrapper.unwrap(webDriver).getWindowHandle());
+        try {
+            probe.get(timeout.toNanos(), NANOSECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            probe.cancel(true);
+            logger.debug("Browser failed health check.", e);
+            return false;
+        } catch (InterruptedException e) {
+            // unknown, so leave the browser to fail, or not, when next used
+            probe.cancel(true);
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    /** Interrupts any checks still waiting on a browser. */
+    void shutdown() {
+        probeExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,147 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import static com.frameworkium.lite.common.properties.Property.*;
+
+import com.frameworkium.lite.common.concurrent.DaemonThreadFactory;
+import com.frameworkium.lite.common.metrics.TimingStats;
+import com.frameworkium.lite.ui.driver.Driver;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Launches browsers on its own threads, at most {@code concurrency} at once
+ * and, optionally, at most {@code ratePerMinute} with bursts of up to
+ * {@code burst}. This stops many test threads starting browsers at once from
+ * overwhelming the machine or Grid.
+ *
+ * <p>One scheduler can be shared by several {@link DriverLifecycle}s so the
+ * limits apply to all browsers launched by the suite.
+ */
+public class DriverLaunchScheduler {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private final ThreadPoolExecutor executor;
+    private final TokenBucket rateLimit;
+
+    private final TimingStats launchTimings = new TimingStats("Browser launches");
+    private final TimingStats queueTimings = new TimingStats("Browser launch queueing");
+
+    /**
+     * @param concurrency   the maximum number of browsers launching at once
+     * @param ratePerMinute the maximum sustained launches per minute, 0 for no limit
+     * @param burst         the number of launches allowed at once, after a
+     *                      quiet period, when rate limited
+     * @throws IllegalArgumentException if concurrency or burst are less than 1
+     *                                  or ratePerMinute is negative
+     */
+    public DriverLaunchScheduler(int concurrency, int ratePerMinute, int burst) {
+        if (concurrency < 1 || ratePerMinute < 0 || burst < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid launch scheduler: concurrency=%d, ratePerMinute=%d, burst=%d",
+                    concurrency, ratePerMinute, burst));
+        }
+        this.executor = new ThreadPoolExecutor(
+                concurrency,
+                concurrency,
+                30,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new DaemonThreadFactory("driver-launch"));
+        // idle threads exit, so a scheduler needs no shutdown
+        this.executor.allowCoreThreadTimeOut(true);
+        this.rateLimit = ratePerMinute == 0
+                ? null
+                : new TokenBucket(Duration.ofMinutes(1).dividedBy(ratePerMinute), burst);
+    }
+
+    /**
+     * @param concurrency the maximum number of browsers launching at once
+     * @return a scheduler with no rate limit
+     */
+    public static DriverLaunchScheduler withConcurrency(int concurrency) {
+        return new DriverLaunchScheduler(concurrency, 0, 1);
+    }
+
+    /**
+     * By default, one browser per test thread can launch at once, without a
+     * rate limit.
+     *
+     * @return the launch scheduler from the {@code launch.*} properties
+     */
+    public static DriverLaunchScheduler fromProperties() {
+        int concurrency = LAUNCH_CONCURRENCY.getIntWithDefault(THREADS.getIntWithDefault(1));
+        return new DriverLaunchScheduler(
+                concurrency,
+                LAUNCH_RATE_PER_MINUTE.getIntWithDefault(0),
+                LAUNCH_BURST.getIntWithDefault(concurrency));
+    }
+
+    /**
+     * @param driverSupplier launches the browser
+     * @return the browser, once launched
+     */
+    public CompletableFuture<Driver> launch(Supplier<Driver> driverSupplier) {
+        long queuedNanos = System.nanoTime();
+        return CompletableFuture.supplyAsync(
+                () -> {
+                    awaitRateLimit();
+                    Duration queued = Duration.ofNanos(System.nanoTime() - queuedNanos);
+                    queueTimings.record(queued);
+                    long launchNanos = System.nanoTime();
+                    try {
+                        return launchTimings.time(driverSupplier);
+                    } finally {
+                        logger.debug(
+                                "Browser launch took {}ms after queueing for {}ms",
+                                Duration.ofNanos(System.nanoTime() - launchNanos)
+                                        .toMillis(),
+                                queued.toMillis());
+                    }
+                },
+                executor);
+    }
+
+    private void awaitRateLimit() {
+        if (rateLimit == null) {
+            return;
+        }
+        try {
+            rateLimit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted waiting to launch a browser");
+        }
+    }
+
+    /**
+     * Launches a browser and waits for it, e.g. when a test needs it now.
+     *
+     * @param driverSupplier launches the browser
+     * @return the launched browser
+     * @throws RuntimeException thrown by the supplier
+     */
+    public Driver launchAndWait(Supplier<Driver> driverSupplier) {
+        try {
+            return launch(driverSupplier).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public TimingStats getLaunchTimings() {
+        return launchTimings;
+    }
+
+    public TimingStats getQueueTimings() {
+        return queueTimings;
+    }
+}
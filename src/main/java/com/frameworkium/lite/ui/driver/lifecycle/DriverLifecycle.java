@@ -33,7 +33,7 @@ public interface DriverLifecycle {
     default void initDriverPool() {}
 
     /**
-     * Will set the current {@link ThreadLocal} {@link Driver} to be the next
+     * Will set the current {@link com.frameworkium.lite.ui.context.TestContext}'s {@link Driver} to be the next
      * available from the pool or will add the {@link Driver} created by the
      * supplied {@link Supplier}.
      *
@@ -41,6 +41,18 @@ public interface DriverLifecycle {
      */
     void initBrowserBeforeTest();
 
+    /**
+     * As {@link #initBrowserBeforeTest()}, but given a hint, e.g. the test
+     * class or base URL, which lifecycles that pool browsers can use to prefer
+     * a browser which last ran a test with the same hint, and so has warm
+     * caches for the same application. By default, the hint is ignored.
+     *
+     * @param affinity the hint, or null for none
+     */
+    default void initBrowserBeforeTest(String affinity) {
+        initBrowserBeforeTest();
+    }
+
     /**
      * @return the {@link WebDriver} in use by the current thread.
      * @throws NullPointerException if called before
@@ -0,0 +1,306 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import static com.frameworkium.lite.common.properties.Property.*;
+
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Sizing and timeouts for the pool of browsers in {@link MultiUseDriverLifecycle}.
+ *
+ * <p>The pool starts with {@code minIdle} browsers and grows on demand up to
+ * {@code maxTotal}. Once {@code maxTotal} browsers are in use, further borrowers
+ * wait up to {@code borrowTimeout} for one to be returned. Browsers idle for
+ * longer than {@code maxIdleTime} are quit until only {@code minIdle} remain.
+ *
+ * <p>Before a browser is returned to the pool, it is reset using the
+ * {@link BrowserResetStrategy}, by default {@link BrowserResetStrategy#COOKIES_ONLY}.
+ *
+ * <p>Browsers can be checked to be responding, within {@code validationTimeout},
+ * before being borrowed and every {@code validationInterval} while idle. Those
+ * which are not are quit and replaced. Both are disabled by default.
+ *
+ * <p>Browsers can be recycled, i.e. quit and replaced in the background, once
+ * they have run {@code maxTestsPerBrowser} tests, are older than
+ * {@code maxBrowserAge} or their processes use more than
+ * {@code maxBrowserMemoryMb} of memory. All are disabled by default.
+ */
+public final class DriverPoolConfig {
+
+    static final Duration DEFAULT_BORROW_TIMEOUT = Duration.ofSeconds(60);
+    static final Duration DEFAULT_VALIDATION_TIMEOUT = Duration.ofSeconds(2);
+
+    private final int minIdle;
+    private final int maxTotal;
+    private final Duration borrowTimeout;
+    private final Duration maxIdleTime;
+    private final BrowserResetStrategy resetStrategy;
+    private final boolean validateOnBorrow;
+    private final Duration validationInterval;
+    private final Duration validationTimeout;
+    private final int maxTestsPerBrowser;
+    private final Duration maxBrowserAge;
+    private final long maxBrowserMemoryMb;
+
+    /**
+     * @param minIdle       number of browsers created up front, the pool is
+     *                      never shrunk below this by idle eviction
+     * @param maxTotal      maximum number of browsers, both idle and in use
+     * @param borrowTimeout how long to wait for a browser when maxTotal are in use
+     * @param maxIdleTime   how long a browser can be idle before it is quit,
+     *                      {@link Duration#ZERO} disables idle eviction
+     * @throws IllegalArgumentException if the sizes are inconsistent
+     */
+    public DriverPoolConfig(
+            int minIdle, int maxTotal, Duration borrowTimeout, Duration maxIdleTime) {
+        this(
+                minIdle,
+                maxTotal,
+                borrowTimeout,
+                maxIdleTime,
+                BrowserResetStrategy.COOKIES_ONLY,
+                false,
+                Duration.ZERO,
+                DEFAULT_VALIDATION_TIMEOUT,
+                0,
+                Duration.ZERO,
+                0);
+    }
+
+    private DriverPoolConfig(
+            int minIdle,
+            int maxTotal,
+            Duration borrowTimeout,
+            Duration maxIdleTime,
+            BrowserResetStrategy resetStrategy,
+            boolean validateOnBorrow,
+            Duration validationInterval,
+            Duration validationTimeout,
+            int maxTestsPerBrowser,
+            Duration maxBrowserAge,
+            long maxBrowserMemoryMb) {
+        if (minIdle < 0 || maxTotal < 1 || minIdle > maxTotal) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid driver pool size: minIdle=%d, maxTotal=%d", minIdle, maxTotal));
+        }
+        this.minIdle = minIdle;
+        this.maxTotal = maxTotal;
+        this.borrowTimeout = borrowTimeout;
+        this.maxIdleTime = maxIdleTime;
+        this.resetStrategy = resetStrategy;
+        this.validateOnBorrow = validateOnBorrow;
+        this.validationInterval = validationInterval;
+        this.validationTimeout = validationTimeout;
+        this.maxTestsPerBrowser = maxTestsPerBrowser;
+        this.maxBrowserAge = maxBrowserAge;
+        this.maxBrowserMemoryMb = maxBrowserMemoryMb;
+    }
+
+    /**
+     * @param size the number of browsers
+     * @return a pool of exactly {@code size} browsers, all created up front
+     *         and never evicted
+     */
+    public static DriverPoolConfig fixedSize(int size) {
+        return new DriverPoolConfig(size, size, DEFAULT_BORROW_TIMEOUT, Duration.ZERO);
+    }
+
+    /**
+     * Both sizes default to the number of threads, so the default pool is
+     * the same fixed size pool as {@link #fixedSize(int)}. Browsers are reset
+     * using {@link BrowserResetStrategy#fromProperties()}. Validation is
+     * disabled unless {@code pool.validateOnBorrow} or
+     * {@code pool.validationInterval} are set, and recycling unless
+     * {@code pool.maxTestsPerBrowser}, {@code pool.maxBrowserAge} or
+     * {@code pool.maxBrowserMemoryMb} are set.
+     *
+     * @return the pool configuration from the {@code pool.*} and
+     *         {@code browserReset} properties
+     */
+    public static DriverPoolConfig fromProperties() {
+        return fromProperties((String) null);
+    }
+
+    /**
+     * Each {@code pool.*} property can be set for one browser type, e.g.
+     * {@code pool.firefox.maxTotal=2}, falling back to the property for all
+     * browsers, so each browser type's pool can be sized on its own.
+     *
+     * @param browser the browser type of the pool
+     * @return the pool configuration from the {@code pool.<browser>.*},
+     *         {@code pool.*} and {@code browserReset} properties
+     * @see #fromProperties()
+     */
+    public static DriverPoolConfig fromProperties(Browser browser) {
+        return fromProperties(browser.name().toLowerCase(Locale.ROOT));
+    }
+
+    private static DriverPoolConfig fromProperties(String browser) {
+        int threads = THREADS.getIntWithDefault(1);
+        int maxTotal = POOL_MAX_TOTAL.getQualifiedIntWithDefault(browser, threads);
+        int minIdle =
+                POOL_MIN_IDLE.getQualifiedIntWithDefault(browser, Math.min(threads, maxTotal));
+        return new DriverPoolConfig(
+                        minIdle,
+                        maxTotal,
+                        Duration.ofSeconds(POOL_BORROW_TIMEOUT.getQualifiedIntWithDefault(
+                                browser, (int) DEFAULT_BORROW_TIMEOUT.toSeconds())),
+                        Duration.ofSeconds(
+                                POOL_MAX_IDLE_TIME.getQualifiedIntWithDefault(browser, 0)))
+                .withResetStrategy(BrowserResetStrategy.fromProperties())
+                .withValidation(
+                        POOL_VALIDATE_ON_BORROW.getQualifiedBoolean(browser),
+                        Duration.ofSeconds(
+                                POOL_VALIDATION_INTERVAL.getQualifiedIntWithDefault(browser, 0)),
+                        Duration.ofSeconds(POOL_VALIDATION_TIMEOUT.getQualifiedIntWithDefault(
+                                browser, (int) DEFAULT_VALIDATION_TIMEOUT.toSeconds())))
+                .withRecycling(
+                        POOL_MAX_TESTS_PER_BROWSER.getQualifiedIntWithDefault(browser, 0),
+                        Duration.ofSeconds(
+                                POOL_MAX_BROWSER_AGE.getQualifiedIntWithDefault(browser, 0)),
+                        POOL_MAX_BROWSER_MEMORY_MB.getQualifiedIntWithDefault(browser, 0));
+    }
+
+    /**
+     * @param resetStrategy how to reset browsers before returning them to the pool
+     * @return a copy of this configuration using the given reset strategy
+     */
+    public DriverPoolConfig withResetStrategy(BrowserResetStrategy resetStrategy) {
+        return new DriverPoolConfig(
+                minIdle,
+                maxTotal,
+                borrowTimeout,
+                maxIdleTime,
+                resetStrategy,
+                validateOnBorrow,
+                validationInterval,
+                validationTimeout,
+                maxTestsPerBrowser,
+                maxBrowserAge,
+                maxBrowserMemoryMb);
+    }
+
+    /**
+     * @param validateOnBorrow   whether to check a browser responds before lending it
+     * @param validationInterval how often to check idle browsers respond,
+     *                           {@link Duration#ZERO} disables background validation
+     * @param validationTimeout  how long a browser has to respond to a check
+     * @return a copy of this configuration using the given validation settings
+     */
+    public DriverPoolConfig withValidation(
+            boolean validateOnBorrow, Duration validationInterval, Duration validationTimeout) {
+        return new DriverPoolConfig(
+                minIdle,
+                maxTotal,
+                borrowTimeout,
+                maxIdleTime,
+                resetStrategy,
+                validateOnBorrow,
+                validationInterval,
+                validationTimeout,
+                maxTestsPerBrowser,
+                maxBrowserAge,
+                maxBrowserMemoryMb);
+    }
+
+    /**
+     * @param maxTestsPerBrowser the number of tests after which a browser is
+     *                           recycled, 0 for no limit
+     * @param maxBrowserAge      the age after which a browser is recycled,
+     *                           {@link Duration#ZERO} for no limit
+     * @param maxBrowserMemoryMb the resident memory, of a local browser's
+     *                           processes, above which it is recycled, 0 for no limit.
+     *                           With {@code sharedDriverService=true} this
+     *                           includes every browser sharing the driver service.
+     * @return a copy of this configuration using the given recycling limits
+     */
+    public DriverPoolConfig withRecycling(
+            int maxTestsPerBrowser, Duration maxBrowserAge, long maxBrowserMemoryMb) {
+        return new DriverPoolConfig(
+                minIdle,
+                maxTotal,
+                borrowTimeout,
+                maxIdleTime,
+                resetStrategy,
+                validateOnBorrow,
+                validationInterval,
+                validationTimeout,
+                maxTestsPerBrowser,
+                maxBrowserAge,
+                maxBrowserMemoryMb);
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public Duration getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public Duration getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public BrowserResetStrategy getResetStrategy() {
+        return resetStrategy;
+    }
+
+    public boolean isValidateOnBorrow() {
+        return validateOnBorrow;
+    }
+
+    public Duration getValidationInterval() {
+        return validationInterval;
+    }
+
+    public Duration getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    public int getMaxTestsPerBrowser() {
+        return maxTestsPerBrowser;
+    }
+
+    public Duration getMaxBrowserAge() {
+        return maxBrowserAge;
+    }
+
+    public long getMaxBrowserMemoryMb() {
+        return maxBrowserMemoryMb;
+    }
+
+    /** @return true if idle browsers should be checked every {@link #getValidationInterval()} */
+    public boolean isBackgroundValidationEnabled() {
+        return !validationInterval.isZero();
+    }
+
+    /** @return true if idle browsers should be quit after {@link #getMaxIdleTime()} */
+    public boolean isIdleEvictionEnabled() {
+        return !maxIdleTime.isZero() && minIdle < maxTotal;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "DriverPoolConfig{minIdle=%d, maxTotal=%d, borrowTimeout=%s, maxIdleTime=%s, "
+                        + "validateOnBorrow=%s, validationInterval=%s, validationTimeout=%s, "
+                        + "maxTestsPerBrowser=%d, maxBrowserAge=%s, maxBrowserMemoryMb=%d}",
+                minIdle,
+                maxTotal,
+                borrowTimeout,
+                maxIdleTime,
+                validateOnBorrow,
+                validationInterval,
+                validationTimeout,
+                maxTestsPerBrowser,
+                maxBrowserAge,
+                maxBrowserMemoryMb);
+    }
+}
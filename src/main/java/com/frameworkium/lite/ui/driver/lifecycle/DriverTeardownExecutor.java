@@ -0,0 +1,137 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import static com.frameworkium.lite.common.properties.Property.*;
+
+import com.frameworkium.lite.common.concurrent.DaemonThreadFactory;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Calls {@link WebDriver#quit()} off the test thread, so tests do not wait
+ * for browsers to shut down.
+ *
+ * <p>At most {@code maxPending} browsers can be queued or quitting at once,
+ * further calls to {@link #quit(WebDriver)} block until one has quit. This
+ * bounds the number of sessions still being torn down, e.g. while they
+ * occupy Grid slots.
+ *
+ * <p>With zero threads browsers are quit synchronously on the calling thread.
+ */
+public class DriverTeardownExecutor {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /** How long the lifecycles wait for pending browsers to quit at the end of the suite. */
+    static final Duration DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    private final ExecutorService executor;
+    private final int maxPending;
+    private final Semaphore pendingQuits;
+
+    /**
+     * @param threads    the number of browsers to quit concurrently,
+     *                   0 to quit synchronously on the calling thread
+     * @param maxPending the maximum number of browsers queued or quitting
+     * @throws IllegalArgumentException if threads is negative or maxPending
+     *                                  is less than 1
+     */
+    public DriverTeardownExecutor(int threads, int maxPending) {
+        if (threads < 0 || maxPending < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid teardown executor: threads=%d, maxPending=%d", threads, maxPending));
+        }
+        this.executor = threads == 0
+                ? null
+                : Executors.newFixedThreadPool(threads, new DaemonThreadFactory("driver-teardown"));
+        this.maxPending = maxPending;
+        this.pendingQuits = new Semaphore(maxPending);
+    }
+
+    /** @return an executor which quits browsers on the calling thread */
+    public static DriverTeardownExecutor synchronous() {
+        return new DriverTeardownExecutor(0, 1);
+    }
+
+    /**
+     * By default, browsers are quit synchronously and, when asynchronous,
+     * at most one browser per test thread is pending.
+     *
+     * @return the teardown executor from the {@code teardown.*} properties
+     */
+    public static DriverTeardownExecutor fromProperties() {
+        return new DriverTeardownExecutor(
+                TEARDOWN_THREADS.getIntWithDefault(0),
+                TEARDOWN_MAX_PENDING.getIntWithDefault(THREADS.getIntWithDefault(1)));
+    }
+
+    /**
+     * Quits the browser asynchronously, blocking first if {@code maxPending}
+     * browsers are already queued or quitting. Failures are logged.
+     *
+     * @param webDriver the browser to quit
+     */
+    public void quit(WebDriver webDriver) {
+        if (executor == null) {
+            quitQuietly(webDriver);
+            return;
+        }
+        try {
+            pendingQuits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            quitQuietly(webDriver);
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    quitQuietly(webDriver);
+                } finally {
+                    pendingQuits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingQuits.release();
+            quitQuietly(webDriver);
+        }
+    }
+
+    private static void quitQuietly(WebDriver webDriver) {
+        try {
+            webDriver.quit();
+        } catch (Exception e) {
+            logger.warn("Failed to quit browser.");
+            logger.debug("Failed to quit browser.", e);
+        }
+    }
+
+    /**
+     * Waits for every pending browser to quit.
+     *
+     * @param timeout the maximum time to wait
+     * @return true if all browsers quit within the timeout
+     */
+    public boolean drain(Duration timeout) {
+        if (executor == null) {
+            return true;
+        }
+        try {
+            if (pendingQuits.tryAcquire(maxPending, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                pendingQuits.release(maxPending);
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.error(
+                "{} browsers had not quit after {}.",
+                maxPending - pendingQuits.availablePermits(),
+                timeout);
+        return false;
+    }
+}
@@ -0,0 +1,135 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import com.frameworkium.lite.ui.driver.DriverUnwrapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resets a browser to the state of a newly launched one, without the cost
+ * of a restart. In order, it:
+ * <ul>
+ * <li>dismisses any open alert</li>
+ * <li>closes all but one window</li>
+ * <li>clears the storage of the current origin: local and session storage,
+ * IndexedDB, Cache Storage and service workers</li>
+ * <li>deletes cookies, for all domains on Chromium</li>
+ * <li>optionally clears the HTTP cache, Chromium only</li>
+ * <li>navigates to {@code about:blank}</li>
+ * </ul>
+ *
+ * <p>On Chromium the storage is cleared using the Chrome DevTools Protocol,
+ * elsewhere using JavaScript. Only the current origin is cleared, so state
+ * written to other origins, e.g. by an SSO redirect, can remain.
+ *
+ * <p>Commands are sent to the undecorated driver, so resets are not logged
+ * or sent to Capture as part of the test.
+ */
+public class FullStateReset implements BrowserResetStrategy {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    static final String CLEAR_STORAGE_SCRIPT = String.join(
+            "\n",
+            "var done = arguments[arguments.length - 1];",
+            "try { localStorage.clear(); } catch (e) {}",
+            "try { sessionStorage.clear(); } catch (e) {}",
+            "var tasks = [];",
+            "if (window.indexedDB && indexedDB.databases) {",
+            "  tasks.push(indexedDB.databases().then(function (dbs) {",
+            "    return Promise.all(dbs.map(function (db) {",
+            "      return new Promise(function (resolve) {",
+            "        var request = indexedDB.deleteDatabase(db.name);",
+            "        request.onsuccess = request.onerror = request.onblocked = resolve;",
+            "      });",
+            "    }));",
+            "  }));",
+            "}",
+            "if (window.caches) {",
+            "  tasks.push(caches.keys().then(function (keys) {",
+            "    return Promise.all(keys.map(function (key) { return caches.delete(key); }));",
+            "  }));",
+            "}",
+            "if (navigator.serviceWorker) {",
+            "  tasks.push(navigator.serviceWorker.getRegistrations().then(function (regs) {",
+            "    return Promise.all(regs.map(function (reg) { return reg.unregister(); }));",
+            "  }));",
+            "}",
+            "Promise.all(tasks.map(function (task) { return task.catch(function () {}); }))",
+            "  .then(function () { done(true); });");
+
+    static final String CLEAR_SESSION_STORAGE_SCRIPT =
+            "try { sessionStorage.clear(); } catch (e) {}";
+
+    private static final String ORIGIN_SCRIPT = "return window.location.origin;";
+
+    private final boolean clearHttpCache;
+
+    /** @param clearHttpCache also clear the HTTP cache, only supported by Chromium */
+    public FullStateReset(boolean clearHttpCache) {
+        this.clearHttpCache = clearHttpCache;
+    }
+
+    @Override
+    public void reset(WebDriver webDriver) {
+        WebDriver driver = DriverUnwrapper.unwrap(webDriver);
+        dismissAlert(driver);
+        closeExtraWindows(driver);
+        if (driver instanceof HasCdp) {
+            clearStateUsingCdp(driver, (HasCdp) driver);
+        } else {
+            clearStateUsingJavascript(driver);
+        }
+        driver.get("about:blank");
+    }
+
+    private void dismissAlert(WebDriver driver) {
+        try {
+            driver.switchTo().alert().dismiss();
+        } catch (NoAlertPresentException ignored) {
+            // nothing to dismiss
+        }
+    }
+
+    private void closeExtraWindows(WebDriver driver) {
+        Set<String> windowHandles = driver.getWindowHandles();
+        if (windowHandles.size() < 2) {
+            return;
+        }
+        String windowToKeep = windowHandles.iterator().next();
+        for (String windowHandle : windowHandles) {
+            if (!windowHandle.equals(windowToKeep)) {
+                driver.switchTo().window(windowHandle).close();
+            }
+        }
+        driver.switchTo().window(windowToKeep);
+    }
+
+    private void clearStateUsingCdp(WebDriver driver, HasCdp cdp) {
+        Object origin = ((JavascriptExecutor) driver).executeScript(ORIGIN_SCRIPT);
+        if (origin instanceof String && ((String) origin).startsWith("http")) {
+            cdp.executeCdpCommand(
+                    "Storage.clearDataForOrigin", Map.of("origin", origin, "storageTypes", "all"));
+            ((JavascriptExecutor) driver).executeScript(CLEAR_SESSION_STORAGE_SCRIPT);
+        }
+        cdp.executeCdpCommand("Network.clearBrowserCookies", Map.of());
+        if (clearHttpCache) {
+            cdp.executeCdpCommand("Network.clearBrowserCache", Map.of());
+        }
+    }
+
+    private void clearStateUsingJavascript(WebDriver driver) {
+        if (driver instanceof JavascriptExecutor) {
+            ((JavascriptExecutor) driver).executeAsyncScript(CLEAR_STORAGE_SCRIPT);
+        }
+        driver.manage().deleteAllCookies();
+        if (clearHttpCache) {
+            logger.debug("Clearing the HTTP cache is only supported by Chromium browsers.");
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import com.frameworkium.lite.ui.context.TestContext;
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps a separate {@link DriverLifecycle}, e.g. a pool of browsers, for each
+ * {@link Browser} type, so tests in several browsers can run in one suite.
+ *
+ * <p>The lifecycle for the default browser is initialised by
+ * {@link #initDriverPool()}, the others when first requested by
+ * {@link #initBrowserBeforeTest(Browser)}. Each is created by the given
+ * factory, which can size them differently. If a lifecycle fails to
+ * initialise, later tests of that browser type fail without retrying.
+ *
+ * @see DriverLifecycle
+ */
+public class KeyedDriverLifecycle implements DriverLifecycle {
+
+    private final Function<Browser, DriverLifecycle> lifecycleFactory;
+    private final Browser defaultBrowser;
+
+    private final Map<Browser, KeyedLifecycle> lifecycles = new ConcurrentHashMap<>();
+    private final TestContext.Key<DriverLifecycle> currentLifecycle =
+            new TestContext.Key<>("driver lifecycle");
+
+    /**
+     * @param lifecycleFactory creates the {@link DriverLifecycle} for a browser type
+     * @param defaultBrowser   the browser used by tests which do not request one
+     */
+    public KeyedDriverLifecycle(
+            Function<Browser, DriverLifecycle> lifecycleFactory, Browser defaultBrowser) {
+        this.lifecycleFactory = lifecycleFactory;
+        this.defaultBrowser = defaultBrowser;
+    }
+
+    /**
+     * Creates and initialises the lifecycle of the default browser.
+     *
+     * @throws IllegalStateException if already initialised
+     */
+    @Override
+    public void initDriverPool() {
+        if (!lifecycles.isEmpty()) {
+            throw new IllegalStateException("initDriverPool called when already initialised");
+        }
+        lifecycleFor(defaultBrowser);
+    }
+
+    private DriverLifecycle lifecycleFor(Browser browser) {
+        // initialised outside computeIfAbsent, so launching browsers only
+        // blocks tests of the same browser type
+        return lifecycles.computeIfAbsent(browser, KeyedLifecycle::new).get();
+    }
+
+    /** Initialises a browser of the default type for the current thread. */
+    @Override
+    public void initBrowserBeforeTest() {
+        initBrowserBeforeTest(defaultBrowser);
+    }
+
+    /**
+     * Initialises a browser of the given type for the current thread,
+     * initialising the lifecycle for that browser type if required.
+     *
+     * @param browser the type of browser required by the test
+     */
+    public void initBrowserBeforeTest(Browser browser) {
+        initBrowserBeforeTest(browser, null);
+    }
+
+    /** Initialises a browser of the default type for the current thread. */
+    @Override
+    public void initBrowserBeforeTest(String affinity) {
+        initBrowserBeforeTest(defaultBrowser, affinity);
+    }
+
+    /**
+     * Initialises a browser of the given type for the current thread,
+     * initialising the lifecycle for that browser type if required.
+     *
+     * @param browser  the type of browser required by the test
+     * @param affinity the hint passed to {@link DriverLifecycle#initBrowserBeforeTest(String)}
+     */
+    public void initBrowserBeforeTest(Browser browser, String affinity) {
+        DriverLifecycle lifecycle = lifecycleFor(browser);
+        TestContext.current().set(currentLifecycle, lifecycle);
+        if (affinity == null) {
+            lifecycle.initBrowserBeforeTest();
+        } else {
+            lifecycle.initBrowserBeforeTest(affinity);
+        }
+    }
+
+    @Override
+    public WebDriver getWebDriver() {
+        DriverLifecycle lifecycle = TestContext.current().get(currentLifecycle);
+        if (lifecycle == null) {
+            return null;
+        }
+        return lifecycle.getWebDriver();
+    }
+
+    @Override
+    public void tearDownDriver() {
+        DriverLifecycle lifecycle = TestContext.current().get(currentLifecycle);
+        if (lifecycle == null) {
+            return;
+        }
+        try {
+            lifecycle.tearDownDriver();
+        } finally {
+            TestContext.current().remove(currentLifecycle);
+        }
+    }
+
+    /** Tears down the lifecycle of every browser type. */
+    @Override
+    public void tearDownDriverPool() {
+        lifecycles.values().forEach(KeyedLifecycle::tearDownDriverPool);
+        lifecycles.clear(); // allows re-initialisation
+    }
+
+    @Override
+    public void reinitialiseCurrentDriver() {
+        DriverLifecycle lifecycle = TestContext.current().get(currentLifecycle);
+        if (lifecycle != null) {
+            lifecycle.reinitialiseCurrentDriver();
+        }
+    }
+
+    /** The lifecycle of one browser type, created and initialised once. */
+    private final class KeyedLifecycle {
+
+        private final Browser browser;
+        private DriverLifecycle lifecycle;
+        private RuntimeException initFailure;
+
+        private KeyedLifecycle(Browser browser) {
+            this.browser = browser;
+        }
+
+        private synchronized DriverLifecycle get() {
+            if (initFailure != null) {
+                throw new IllegalStateException(
+                        "Driver lifecycle for " + browser + " failed to initialise", initFailure);
+            }
+            if (lifecycle == null) {
+                DriverLifecycle newLifecycle = lifecycleFactory.apply(browser);
+                try {
+                    newLifecycle.initDriverPool();
+                } catch (RuntimeException e) {
+                    initFailure = e;
+                    throw e;
+                }
+                lifecycle = newLifecycle;
+            }
+            return lifecycle;
+        }
+
+        private synchronized void tearDownDriverPool() {
+            if (lifecycle != null) {
+                lifecycle.tearDownDriverPool();
+            }
+        }
+    }
+}
@@ -1,39 +1,127 @@
 package com.frameworkium.lite.ui.driver.lifecycle;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.frameworkium.lite.common.concurrent.DaemonThreadFactory;
+import com.frameworkium.lite.common.metrics.TimingStats;
+import com.frameworkium.lite.ui.context.TestContext;
 import com.frameworkium.lite.ui.driver.Driver;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
 
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-/** @see DriverLifecycle */
+/**
+ * An elastic pool of {@link Driver}s, sized by a {@link DriverPoolConfig}.
+ *
+ * <p>Returned drivers are added to the head of the pool, so the most recently
+ * used drivers are handed out first and the least recently used drift to the
+ * tail, where they are evicted once idle for too long.
+ *
+ * <p>Given an affinity hint, e.g. the test class, the most recently used
+ * idle driver which last ran a test with the same hint is preferred, so that
+ * its warm caches are reused, otherwise the next free driver is used.
+ *
+ * <p>Browsers can be validated before being lent and periodically while idle,
+ * so dead browsers are replaced before a test uses them. Browsers which have
+ * reached a recycling limit are quit and replaced in the background rather
+ * than being returned to the pool.
+ *
+ * @see DriverLifecycle
+ */
 public class MultiUseDriverLifecycle implements DriverLifecycle {
 
     private static final Logger logger = LogManager.getLogger();
 
-    private static final ThreadLocal<Driver> threadLocalDriver = new ThreadLocal<>();
+    /** Upper bound on each wait for a returned driver, before re-checking for free capacity. */
+    private static final Duration BORROW_POLL_INTERVAL = Duration.ofMillis(500);
+
+    private final TestContext.Key<PooledDriver> currentDriver =
+            new TestContext.Key<>("pooled driver");
 
     private final Supplier<Driver> driverSupplier;
-    private final int poolSize;
-    private BlockingDeque<Driver> driverPool;
+    private final DriverPoolConfig config;
+    private final DriverTeardownExecutor teardownExecutor;
+    private final DriverLaunchScheduler launchScheduler;
+
+    /** The number of drivers alive, both idle in the pool and in use. */
+    private final AtomicInteger totalDrivers = new AtomicInteger();
+
+    private final TimingStats resetTimings = new TimingStats("Browser resets");
+    private final AtomicInteger recycledDrivers = new AtomicInteger();
+    private final AtomicInteger affinityHits = new AtomicInteger();
+    private final AtomicInteger affinityMisses = new AtomicInteger();
+
+    private BlockingDeque<PooledDriver> driverPool;
+    /** Set, while holding its lock, once the current pool is torn down. */
+    private AtomicBoolean driverPoolClosed;
+
+    private ScheduledExecutorService poolMaintainer;
+    private DriverHealthCheck healthCheck;
+    private final Set<CompletableFuture<Driver>> pendingReplacements =
+            ConcurrentHashMap.newKeySet();
 
     /**
      * @param driverSupplier the {@link Supplier} that creates {@link Driver}s
      * @param poolSize the fixed size of the pool of drivers
      */
     public MultiUseDriverLifecycle(Supplier<Driver> driverSupplier, int poolSize) {
+        this(
+                driverSupplier,
+                DriverPoolConfig.fixedSize(poolSize),
+                DriverTeardownExecutor.synchronous());
+    }
+
+    /**
+     * @param driverSupplier the {@link Supplier} that creates {@link Driver}s
+     * @param config the sizing and timeouts of the pool
+     * @param teardownExecutor quits the browsers removed from the pool
+     */
+    public MultiUseDriverLifecycle(
+            Supplier<Driver> driverSupplier,
+            DriverPoolConfig config,
+            DriverTeardownExecutor teardownExecutor) {
+        this(
+                driverSupplier,
+                config,
+                teardownExecutor,
+                DriverLaunchScheduler.withConcurrency(config.getMaxTotal()));
+    }
+
+    /**
+     * @param driverSupplier the {@link Supplier} that creates {@link Driver}s
+     * @param config the sizing and timeouts of the pool
+     * @param teardownExecutor quits the browsers removed from the pool
+     * @param launchScheduler launches the browsers for the pool
+     */
+    public MultiUseDriverLifecycle(
+            Supplier<Driver> driverSupplier,
+            DriverPoolConfig config,
+            DriverTeardownExecutor teardownExecutor,
+            DriverLaunchScheduler launchScheduler) {
         this.driverSupplier = driverSupplier;
-        this.poolSize = poolSize;
+        this.config = config;
+        this.teardownExecutor = teardownExecutor;
+        this.launchScheduler = launchScheduler;
     }
 
     /**
-     * Create {@link Driver}s in parallel and add them to the pool up to the
-     * size specified.
+     * Create {@link Driver}s, using the {@link DriverLaunchScheduler}, and add them to the pool up to the
+     * minimum size specified, then start idle eviction and background
+     * validation if enabled.
      *
      * @throws IllegalStateException if trying to re-initialise existing pool
      */
@@ -42,85 +130,431 @@ public class MultiUseDriverLifecycle implements DriverLifecycle {
         if (driverPool != null) {
             throw new IllegalStateException("initDriverPool called when already initialised");
         }
-        driverPool = new LinkedBlockingDeque<>(poolSize);
-        IntStream.range(0, poolSize)
-                .parallel()
-                .mapToObj(i -> driverSupplier.get())
-                .forEach(driverPool::addLast);
+        logger.debug("Initialising driver pool: {}", config);
+        driverPool = new LinkedBlockingDeque<>(config.getMaxTotal());
+        driverPoolClosed = new AtomicBoolean();
+        List<CompletableFuture<Driver>> launches = IntStream.range(0, config.getMinIdle())
+                .mapToObj(i -> launchScheduler.launch(driverSupplier))
+                .collect(Collectors.toList());
+        List<Driver> launched = new ArrayList<>();
+        RuntimeException launchFailure = null;
+        for (CompletableFuture<Driver> launch : launches) {
+            try {
+                launched.add(join(launch));
+            } catch (RuntimeException e) {
+                if (launchFailure == null) {
+                    launchFailure = e;
+                } else {
+                    launchFailure.addSuppressed(e);
+                }
+            }
+        }
+        if (launchFailure != null) {
+            // quit the browsers which did launch, so they are not left running
+            quitAll(launched);
+            driverPool = null;
+            throw launchFailure;
+        }
+        launched.forEach(driver -> driverPool.addLast(new PooledDriver(driver)));
+        totalDrivers.set(driverPool.size());
+        healthCheck = new DriverHealthCheck(config.getValidationTimeout());
+        startPoolMaintainer();
+    }
+
+    private void quitAll(List<Driver> drivers) {
+        for (Driver driver : drivers) {
+            try {
+                teardownExecutor.quit(driver.getWebDriver());
+            } catch (Exception e) {
+                logger.debug("Failed to quit browser.", e);
+            }
+        }
+        teardownExecutor.drain(DriverTeardownExecutor.DRAIN_TIMEOUT);
+    }
+
+    private static Driver join(CompletableFuture<Driver> launch) {
+        try {
+            return launch.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
     /**
-     * Will set the current {@link ThreadLocal} {@link Driver} to be the next
-     * available from the pool.
+     * Will set the current {@link TestContext}'s {@link Driver} to be the next
+     * available from the pool. If none are available, a new {@link Driver} is
+     * created, unless the pool is at its maximum size, in which case this
+     * waits for one to be returned. If validation on borrow is enabled, dead
+     * drivers are quit and skipped.
      *
-     * @throws java.util.NoSuchElementException if this pool is empty
+     * @throws NoSuchElementException if no driver becomes available within
+     *                                the borrow timeout
      */
     @Override
     public void initBrowserBeforeTest() {
-        threadLocalDriver.set(driverPool.removeFirst());
+        initBrowserBeforeTest(null);
+    }
+
+    /**
+     * As {@link #initBrowserBeforeTest()}, but preferring an idle driver which
+     * last ran a test with the same affinity hint.
+     *
+     * @param affinity the hint, e.g. the test class, or null for none
+     * @throws NoSuchElementException if no driver becomes available within
+     *                                the borrow timeout
+     */
+    @Override
+    public void initBrowserBeforeTest(String affinity) {
+        PooledDriver pooledDriver = borrowDriver(affinity);
+        pooledDriver.setAffinity(affinity);
+        TestContext.current().set(currentDriver, pooledDriver);
+    }
+
+    private PooledDriver borrowDriver(String affinity) {
+        long deadline = System.nanoTime() + config.getBorrowTimeout().toNanos();
+        while (true) {
+            PooledDriver pooledDriver = pollPreferred(affinity);
+            if (pooledDriver != null) {
+                if (isAliveOnBorrow(pooledDriver)) {
+                    return pooledDriver;
+                }
+                continue;
+            }
+            if (tryReserveDriver()) {
+                return createReservedDriver();
+            }
+
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                throw new NoSuchElementException(String.format(
+                        "No browser became available within %s, all %d are in use",
+                        config.getBorrowTimeout(), config.getMaxTotal()));
+            }
+            try {
+                pooledDriver = driverPool.pollFirst(
+                        Math.min(remainingNanos, BORROW_POLL_INTERVAL.toNanos()), NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a browser", e);
+            }
+            if (pooledDriver != null && isAliveOnBorrow(pooledDriver)) {
+                return pooledDriver;
+            }
+        }
+    }
+
+    /**
+     * @return the most recently used idle driver which last ran a test with
+     *         the given affinity, or failing that the most recently used idle
+     *         driver, or null if none are idle
+     */
+    private PooledDriver pollPreferred(String affinity) {
+        if (affinity == null) {
+            return driverPool.pollFirst();
+        }
+        for (PooledDriver pooledDriver : driverPool) {
+            if (affinity.equals(pooledDriver.getAffinity())
+                    && driverPool.removeFirstOccurrence(pooledDriver)) {
+                affinityHits.incrementAndGet();
+                return pooledDriver;
+            }
+        }
+        PooledDriver pooledDriver = driverPool.pollFirst();
+        if (pooledDriver != null) {
+            affinityMisses.incrementAndGet();
+        }
+        return pooledDriver;
+    }
+
+    /** @return false, having discarded the driver, if it failed validation on borrow */
+    private boolean isAliveOnBorrow(PooledDriver pooledDriver) {
+        if (!config.isValidateOnBorrow()
+                || healthCheck.isAlive(pooledDriver.getDriver().getWebDriver())) {
+            return true;
+        }
+        logger.warn("Discarding browser which is not responding.");
+        discardDriver(pooledDriver);
+        return false;
+    }
+
+    private void discardDriver(PooledDriver pooledDriver) {
+        totalDrivers.decrementAndGet();
+        try {
+            teardownExecutor.quit(pooledDriver.getDriver().getWebDriver());
+        } catch (Exception e) {
+            logger.debug("Failed to quit discarded browser.", e);
+        }
+    }
+
+    /** @return true if there was capacity for, and we have reserved, another driver */
+    private boolean tryReserveDriver() {
+        int current;
+        do {
+            current = totalDrivers.get();
+            if (current >= config.getMaxTotal()) {
+                return false;
+            }
+        } while (!totalDrivers.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private PooledDriver createReservedDriver() {
+        try {
+            return new PooledDriver(launchScheduler.launchAndWait(driverSupplier));
+        } catch (RuntimeException e) {
+            totalDrivers.decrementAndGet();
+            throw e;
+        }
     }
 
     @Override
     public WebDriver getWebDriver() {
-        if (threadLocalDriver.get() == null) {
+        PooledDriver pooledDriver = TestContext.current().get(currentDriver);
+        if (pooledDriver == null) {
             return null;
         }
-        return threadLocalDriver.get().getWebDriver();
+        return pooledDriver.getDriver().getWebDriver();
     }
 
     /**
-     * If reuseBrowser is true, this will {@code deleteAllCookies} and then
-     * re-add the {@link Driver} back to the pool, else it will call {@code quit()}
-     * on the underlying {@link WebDriver}.
+     * Resets the browser using the configured {@link BrowserResetStrategy} and
+     * then re-adds the {@link Driver} back to the pool. If the reset fails,
+     * the browser is quit and replaced. If the browser has reached a recycling
+     * limit, it is quit and replaced in the background.
      */
     @Override
     public void tearDownDriver() {
         try {
-            Driver driver = threadLocalDriver.get();
-            driver.getWebDriver().manage().deleteAllCookies();
-            driverPool.addLast(driver);
+            PooledDriver pooledDriver = TestContext.current().get(currentDriver);
+            pooledDriver.recordTestRun();
+            if (isRecyclingRequired(pooledDriver)) {
+                recycleDriver(pooledDriver);
+                return;
+            }
+            WebDriver webDriver = pooledDriver.getDriver().getWebDriver();
+            long resetStart = System.nanoTime();
+            config.getResetStrategy().reset(webDriver);
+            resetTimings.record(Duration.ofNanos(System.nanoTime() - resetStart));
+            pooledDriver.markIdle();
+            driverPool.addFirst(pooledDriver);
         } catch (Exception e) {
             logger.warn("Failed to tear down browser after test method.");
             logger.debug("Failed to tear down browser after test method.", e);
             reinitialiseCurrentDriver();
         } finally {
-            threadLocalDriver.remove();
+            TestContext.current().remove(currentDriver);
+        }
+    }
+
+    private boolean isRecyclingRequired(PooledDriver pooledDriver) {
+        if (config.getMaxTestsPerBrowser() > 0
+                && pooledDriver.getTestsRun() >= config.getMaxTestsPerBrowser()) {
+            logger.debug("Recycling browser after {} tests", pooledDriver.getTestsRun());
+            return true;
+        }
+        if (!config.getMaxBrowserAge().isZero()
+                && pooledDriver.getAge().compareTo(config.getMaxBrowserAge()) > 0) {
+            logger.debug("Recycling browser aged {}", pooledDriver.getAge());
+            return true;
+        }
+        if (config.getMaxBrowserMemoryMb() > 0) {
+            long memoryMb = pooledDriver.getResidentMemoryBytes().orElse(0) / (1024 * 1024);
+            if (memoryMb > config.getMaxBrowserMemoryMb()) {
+                logger.debug("Recycling browser using {}MB", memoryMb);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Quits the driver and launches its replacement without waiting for either. */
+    private void recycleDriver(PooledDriver pooledDriver) {
+        recycledDrivers.incrementAndGet();
+        try {
+            teardownExecutor.quit(pooledDriver.getDriver().getWebDriver());
+        } catch (Exception e) {
+            logger.debug("Failed to quit recycled browser.", e);
+        }
+        var pool = driverPool;
+        var poolClosed = driverPoolClosed;
+        // the replacement takes the recycled driver's place in totalDrivers
+        CompletableFuture<Driver> replacement = launchScheduler.launch(driverSupplier);
+        pendingReplacements.add(replacement);
+        replacement.whenComplete((driver, e) -> {
+            if (e == null) {
+                addReplacement(pool, poolClosed, driver);
+            } else {
+                totalDrivers.decrementAndGet();
+                logger.warn("Failed to launch replacement for recycled browser.");
+                logger.debug("Failed to launch replacement for recycled browser.", e);
+            }
+            pendingReplacements.remove(replacement);
+        });
+    }
+
+    /** Adds a replacement to the pool or, if it has been torn down, quits it. */
+    private void addReplacement(
+            BlockingDeque<PooledDriver> pool, AtomicBoolean poolClosed, Driver driver) {
+        synchronized (poolClosed) {
+            if (!poolClosed.get()) {
+                pool.addFirst(new PooledDriver(driver));
+                return;
+            }
+        }
+        logger.debug("Quitting replacement browser launched after the pool was torn down.");
+        try {
+            teardownExecutor.quit(driver.getWebDriver());
+        } catch (Exception e) {
+            logger.debug("Failed to quit replacement browser.", e);
         }
     }
 
     /**
-     * Drains the pool, calls {@link WebDriver#quit} on every {@link Driver}
-     * remaining in the pool and sets the pool to {@code null}.
+     * Stops pool maintenance, drains the pool, calls {@link WebDriver#quit} on
+     * every {@link Driver} remaining in the pool, waits for all browsers to
+     * finish quitting and sets the pool to {@code null}.
      */
     @Override
     public void tearDownDriverPool() {
         if (driverPool == null) {
             return;
         }
+        if (poolMaintainer != null) {
+            poolMaintainer.shutdownNow();
+            poolMaintainer = null;
+        }
+        healthCheck.shutdown();
+        awaitReplacements();
+        // replacements launched from now on are quit rather than added to the pool
+        synchronized (driverPoolClosed) {
+            driverPoolClosed.set(true);
+        }
 
-        driverPool.parallelStream().forEach(driver -> {
+        driverPool.parallelStream().forEach(pooledDriver -> {
             try {
-                driver.getWebDriver().quit();
+                teardownExecutor.quit(pooledDriver.getDriver().getWebDriver());
             } catch (Exception e) {
                 logger.error("Failed to quit a browser in the pool.");
                 logger.debug("Failed to quit a browser in the pool.", e);
             }
         });
+        teardownExecutor.drain(DriverTeardownExecutor.DRAIN_TIMEOUT);
+        logger.info(
+                "{}; {}; {}; {} browsers recycled; affinity hits={}, misses={}",
+                launchScheduler.getLaunchTimings(),
+                launchScheduler.getQueueTimings(),
+                resetTimings,
+                recycledDrivers,
+                affinityHits,
+                affinityMisses);
 
         driverPool = null; // allows re-initialisation
+        totalDrivers.set(0);
     }
 
+    /**
+     * Quits the current driver and, if that leaves the pool below its minimum
+     * size, replaces it. Otherwise, a new driver is only created on demand.
+     */
     @Override
     public void reinitialiseCurrentDriver() {
-        Driver currentDriver = threadLocalDriver.get();
-        if (currentDriver != null) {
+        PooledDriver pooledDriver = TestContext.current().get(currentDriver);
+        if (pooledDriver != null) {
             try {
-                currentDriver.getWebDriver().quit();
+                teardownExecutor.quit(pooledDriver.getDriver().getWebDriver());
             } catch (Exception e) {
                 logger.warn("Failed to quit existing browser in the pool.", e);
             }
+            totalDrivers.decrementAndGet();
+        }
+        TestContext.current().remove(currentDriver);
+        replenishToMinIdle();
+    }
+
+    private void awaitReplacements() {
+        try {
+            CompletableFuture.allOf(pendingReplacements.toArray(new CompletableFuture<?>[0]))
+                    .get(DriverTeardownExecutor.DRAIN_TIMEOUT.toMillis(), MILLISECONDS);
+        } catch (ExecutionException e) {
+            // already logged by the replacement
+        } catch (TimeoutException e) {
+            logger.warn(
+                    "Replacement browsers still launching after {}",
+                    DriverTeardownExecutor.DRAIN_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void replenishToMinIdle() {
+        while (totalDrivers.get() < config.getMinIdle() && tryReserveDriver()) {
+            driverPool.addLast(createReservedDriver());
+        }
+    }
+
+    private void startPoolMaintainer() {
+        if (!config.isIdleEvictionEnabled() && !config.isBackgroundValidationEnabled()) {
+            return;
+        }
+        poolMaintainer = Executors.newSingleThreadScheduledExecutor(
+                new DaemonThreadFactory("driver-pool-maintainer"));
+        if (config.isIdleEvictionEnabled()) {
+            long periodMillis = Math.max(1000, config.getMaxIdleTime().toMillis() / 2);
+            poolMaintainer.scheduleWithFixedDelay(
+                    this::evictIdleDrivers, periodMillis, periodMillis, MILLISECONDS);
+        }
+        if (config.isBackgroundValidationEnabled()) {
+            long periodMillis = config.getValidationInterval().toMillis();
+            poolMaintainer.scheduleWithFixedDelay(
+                    this::validateIdleDrivers, periodMillis, periodMillis, MILLISECONDS);
+        }
+    }
+
+    /**
+     * Quits drivers that have been idle for longer than the max idle time,
+     * starting from the least recently used, until only minIdle remain.
+     */
+    void evictIdleDrivers() {
+        var pool = driverPool;
+        if (pool == null) {
+            return;
+        }
+        var leastRecentlyUsedFirst = pool.descendingIterator();
+        while (leastRecentlyUsedFirst.hasNext() && totalDrivers.get() > config.getMinIdle()) {
+            PooledDriver pooledDriver = leastRecentlyUsedFirst.next();
+            if (pooledDriver.getIdleTime().compareTo(config.getMaxIdleTime()) > 0
+                    && pool.removeFirstOccurrence(pooledDriver)) {
+                logger.debug("Evicting browser idle for {}", pooledDriver.getIdleTime());
+                discardDriver(pooledDriver);
+            }
+        }
+    }
+
+    /**
+     * Checks every idle driver is responding, quitting those which are not,
+     * then replenishes the pool to its minimum size.
+     */
+    void validateIdleDrivers() {
+        var pool = driverPool;
+        if (pool == null) {
+            return;
+        }
+        for (PooledDriver pooledDriver : pool) {
+            // a driver borrowed during its check is validated by the borrower, if enabled
+            if (!healthCheck.isAlive(pooledDriver.getDriver().getWebDriver())
+                    && pool.removeFirstOccurrence(pooledDriver)) {
+                logger.warn("Replacing idle browser which is not responding.");
+                discardDriver(pooledDriver);
+            }
+        }
+        try {
+            replenishToMinIdle();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to replace browser in the pool.");
+            logger.debug("Failed to replace browser in the pool.", e);
         }
-        threadLocalDriver.remove();
-        driverPool.addLast(driverSupplier.get());
     }
 }
@@ -0,0 +1,73 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import com.frameworkium.lite.ui.driver.BrowserProcesses;
+import com.frameworkium.lite.ui.driver.Driver;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/** A {@link Driver} held by {@link MultiUseDriverLifecycle} and its pool metadata. */
+final class PooledDriver {
+
+    private final Driver driver;
+    private final long createdNanos = System.nanoTime();
+    private volatile long idleSinceNanos;
+    private int testsRun;
+    private volatile String affinity;
+    private Optional<ProcessHandle> driverService;
+
+    PooledDriver(Driver driver) {
+        this.driver = driver;
+        markIdle();
+    }
+
+    Driver getDriver() {
+        return driver;
+    }
+
+    /** Records that the driver has just been returned to the pool. */
+    void markIdle() {
+        idleSinceNanos = System.nanoTime();
+    }
+
+    /** @return how long since the driver was created or last returned to the pool */
+    Duration getIdleTime() {
+        return Duration.ofNanos(System.nanoTime() - idleSinceNanos);
+    }
+
+    /** @return how long since the driver was created */
+    Duration getAge() {
+        return Duration.ofNanos(System.nanoTime() - createdNanos);
+    }
+
+    /** Records that a test has finished using the driver. */
+    void recordTestRun() {
+        testsRun++;
+    }
+
+    /** @return the number of tests which have used the driver */
+    int getTestsRun() {
+        return testsRun;
+    }
+
+    /** @param affinity the hint of the test now using the driver, or null */
+    void setAffinity(String affinity) {
+        this.affinity = affinity;
+    }
+
+    /** @return the hint of the test which last used the driver, or null */
+    String getAffinity() {
+        return affinity;
+    }
+
+    /** @return the resident memory of the browser's processes, if it is running locally */
+    OptionalLong getResidentMemoryBytes() {
+        if (driverService == null) {
+            driverService = BrowserProcesses.findDriverService(driver.getWebDriver());
+        }
+        return driverService
+                .map(BrowserProcesses::residentMemoryBytes)
+                .orElse(OptionalLong.empty());
+    }
+}
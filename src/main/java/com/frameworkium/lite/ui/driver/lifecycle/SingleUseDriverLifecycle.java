@@ -1,16 +1,26 @@
 package com.frameworkium.lite.ui.driver.lifecycle;
 
+import com.frameworkium.lite.ui.context.TestContext;
 import com.frameworkium.lite.ui.driver.Driver;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.WebDriver;
 
+import java.util.concurrent.*;
 import java.util.function.Supplier;
 
 /**
- * {@link #initDriverPool()} and {@link #tearDownDriverPool()} do not do
- * anything for {@link SingleUseDriverLifecycle} and can be omitted.
+ * Every test gets a new {@link Driver} which is quit after the test.
+ *
+ * <p>Optionally, a number of browsers can be pre-warmed: launched in the
+ * background while tests run, so the next test takes an already started
+ * browser rather than waiting for one to launch. Pre-warmed browsers are
+ * launched by the {@link DriverLaunchScheduler}.
+ *
+ * <p>{@link #initDriverPool()} only starts pre-warming so can be omitted if
+ * it is not enabled. {@link #tearDownDriverPool()} also waits for browsers
+ * being quit by the {@link DriverTeardownExecutor}.
  *
  * @see DriverLifecycle
  */
@@ -18,48 +28,166 @@ public class SingleUseDriverLifecycle implements DriverLifecycle {
 
     private static final Logger logger = LogManager.getLogger();
 
-    private static final ThreadLocal<Driver> threadLocalDriver = new ThreadLocal<>();
+    private final TestContext.Key<Driver> currentDriver = new TestContext.Key<>("driver");
 
     private final Supplier<Driver> driverSupplier;
+    private final int prewarmCount;
+    private final DriverTeardownExecutor teardownExecutor;
+    private final DriverLaunchScheduler launchScheduler;
+
+    private BlockingQueue<CompletableFuture<Driver>> prewarmedDrivers;
 
     public SingleUseDriverLifecycle(Supplier<Driver> driverSupplier) {
+        this(driverSupplier, 0, DriverTeardownExecutor.synchronous());
+    }
+
+    /**
+     * @param driverSupplier the {@link Supplier} that creates {@link Driver}s
+     * @param prewarmCount   the number of browsers to keep launched in the
+     *                       background, ready for upcoming tests, 0 disables
+     * @param teardownExecutor quits the browsers once tests have finished
+     */
+    public SingleUseDriverLifecycle(
+            Supplier<Driver> driverSupplier,
+            int prewarmCount,
+            DriverTeardownExecutor teardownExecutor) {
+        this(
+                driverSupplier,
+                prewarmCount,
+                teardownExecutor,
+                DriverLaunchScheduler.withConcurrency(Math.max(1, prewarmCount)));
+    }
+
+    /**
+     * @param driverSupplier the {@link Supplier} that creates {@link Driver}s
+     * @param prewarmCount   the number of browsers to keep launched in the
+     *                       background, ready for upcoming tests, 0 disables
+     * @param teardownExecutor quits the browsers once tests have finished
+     * @param launchScheduler launches the pre-warmed browsers
+     */
+    public SingleUseDriverLifecycle(
+            Supplier<Driver> driverSupplier,
+            int prewarmCount,
+            DriverTeardownExecutor teardownExecutor,
+            DriverLaunchScheduler launchScheduler) {
         this.driverSupplier = driverSupplier;
+        this.prewarmCount = prewarmCount;
+        this.teardownExecutor = teardownExecutor;
+        this.launchScheduler = launchScheduler;
+    }
+
+    /**
+     * Starts launching the pre-warmed browsers, if enabled.
+     *
+     * @throws IllegalStateException if pre-warming has already been started
+     */
+    @Override
+    public void initDriverPool() {
+        if (prewarmCount < 1) {
+            return;
+        }
+        if (prewarmedDrivers != null) {
+            throw new IllegalStateException("initDriverPool called when already initialised");
+        }
+        prewarmedDrivers = new LinkedBlockingQueue<>();
+        for (int i = 0; i < prewarmCount; i++) {
+            prewarmNextDriver();
+        }
+    }
+
+    private void prewarmNextDriver() {
+        var queue = prewarmedDrivers;
+        if (queue != null) {
+            queue.add(launchScheduler.launch(driverSupplier));
+        }
     }
 
     /**
-     * Sets the {@link Driver} created by the supplied {@link Supplier} to the
-     * {@link ThreadLocal} driver.
+     * Sets the current {@link TestContext}'s driver to a pre-warmed {@link Driver}, and
+     * starts pre-warming its replacement, or to a {@link Driver} created by
+     * the supplied {@link Supplier} if pre-warming is not enabled.
      */
     @Override
     public void initBrowserBeforeTest() {
-        threadLocalDriver.set(driverSupplier.get());
+        TestContext.current().set(currentDriver, nextDriver());
+    }
+
+    private Driver nextDriver() {
+        CompletableFuture<Driver> prewarmedDriver = takePrewarmedDriver();
+        if (prewarmedDriver == null) {
+            return driverSupplier.get();
+        }
+        prewarmNextDriver();
+        try {
+            return prewarmedDriver.join();
+        } catch (CompletionException | CancellationException e) {
+            logger.warn("Failed to pre-warm browser, launching a new one.");
+            logger.debug("Failed to pre-warm browser.", e);
+            return driverSupplier.get();
+        }
+    }
+
+    /** @return a launched browser if there is one, else the longest launching, or null */
+    private CompletableFuture<Driver> takePrewarmedDriver() {
+        var queue = prewarmedDrivers;
+        if (queue == null) {
+            return null;
+        }
+        for (CompletableFuture<Driver> prewarmedDriver : queue) {
+            if (prewarmedDriver.isDone() && queue.remove(prewarmedDriver)) {
+                return prewarmedDriver;
+            }
+        }
+        return queue.poll();
     }
 
     @Override
     public WebDriver getWebDriver() {
-        if (threadLocalDriver.get() == null) {
+        Driver driver = TestContext.current().get(currentDriver);
+        if (driver == null) {
             return null;
         }
-        return threadLocalDriver.get().getWebDriver();
+        return driver.getWebDriver();
     }
 
-    /** Calls {@code quit()} on the underlying driver. */
+    /** Hands the underlying driver to the {@link DriverTeardownExecutor} to quit. */
     @Override
     public void tearDownDriver() {
         try {
-            threadLocalDriver.get().getWebDriver().quit();
+            teardownExecutor.quit(TestContext.current().get(currentDriver).getWebDriver());
         } catch (Exception e) {
             logger.warn("Failed to quit browser.");
             logger.debug("Failed to quit browser", e);
         } finally {
-            threadLocalDriver.remove();
+            TestContext.current().remove(currentDriver);
+        }
+    }
+
+    /**
+     * Stops pre-warming, quits every pre-warmed browser, waiting for any
+     * still launching, then waits for all browsers to finish quitting.
+     */
+    @Override
+    public void tearDownDriverPool() {
+        var queue = prewarmedDrivers;
+        if (queue != null) {
+            prewarmedDrivers = null; // stops pre-warming and allows re-initialisation
+            CompletableFuture<Driver> prewarmedDriver;
+            while ((prewarmedDriver = queue.poll()) != null) {
+                try {
+                    teardownExecutor.quit(prewarmedDriver.join().getWebDriver());
+                } catch (Exception e) {
+                    logger.debug("Failed to quit pre-warmed browser.", e);
+                }
+            }
         }
+        teardownExecutor.drain(DriverTeardownExecutor.DRAIN_TIMEOUT);
     }
 
     @Override
     public void reinitialiseCurrentDriver() {
         try {
-            threadLocalDriver.get().getWebDriver().quit();
+            teardownExecutor.quit(TestContext.current().get(currentDriver).getWebDriver());
         } catch (Exception e) {
             logger.debug("Failed to quit current driver during reinitialise.", e);
         }
@@ -0,0 +1,50 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+
+/**
+ * Limits the rate of an operation to one per {@code interval}, allowing
+ * bursts of up to {@code capacity} after a quiet period.
+ */
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final int capacity;
+
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * @param interval the time to add one token
+     * @param capacity the maximum number of tokens, which the bucket starts with
+     */
+    TokenBucket(Duration interval, int capacity) {
+        this.nanosPerToken = interval.toNanos();
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    /** Blocks until a token is available, then takes it. */
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token, going into debt if none are available, so that callers
+     * are served in order.
+     *
+     * @return how long the caller must wait before using its token
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (double) (now - lastRefillNanos) / nanosPerToken);
+        lastRefillNanos = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) (-tokens * nanosPerToken);
+    }
+}
@@ -0,0 +1,374 @@
+package com.frameworkium.lite.ui.driver.lifecycle;
+
+import com.frameworkium.lite.common.metrics.TimingStats;
+import com.frameworkium.lite.ui.context.TestContext;
+import com.frameworkium.lite.ui.driver.Driver;
+import com.frameworkium.lite.ui.driver.DriverUnwrapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.*;
+import org.openqa.selenium.bidi.browsingcontext.BrowsingContext;
+import org.openqa.selenium.bidi.browsingcontext.CreateContextParameters;
+import org.openqa.selenium.bidi.browsingcontext.ReadinessState;
+import org.openqa.selenium.bidi.module.Browser;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.openqa.selenium.support.decorators.WebDriverDecorator;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs every test in one shared browser, each test in its own WebDriver BiDi
+ * user context, which is an isolated, incognito-like, profile with its own
+ * cookies and storage. This uses far less memory per test than a browser
+ * per thread.
+ *
+ * <p>Classic WebDriver commands act on the session's current window, so each
+ * test's {@link WebDriver} is decorated to switch to that test's window before
+ * every command. A lock stops commands from different tests interleaving, so
+ * classic commands, e.g. finding and clicking elements, run one at a time
+ * across all tests, as the driver would anyway for one session. Waits poll
+ * with separate commands, so do not hold the lock while sleeping.
+ *
+ * <p>Page loads and screenshots, which take longest, instead use BiDi
+ * commands addressed to the test's window, so run concurrently without the
+ * lock: {@link WebDriver#get(String)}, {@code navigate().to(...)} and
+ * {@code getScreenshotAs(...)} of the window. How long commands waited for,
+ * and held, the lock is logged when the browser is quit, to show how much the
+ * remaining serialisation costs. The browser's listeners, e.g. logging and
+ * Capture, decorate each test's driver outside the window switching, so they
+ * see BiDi commands too. This suits tests which spend most of their time
+ * loading pages and waiting. Frame selection is lost when another test's
+ * command runs in between, so tests using frames should re-select them.
+ *
+ * <p>Requires a browser supporting BiDi user contexts, e.g. recent Chrome,
+ * Edge or Firefox. {@link com.frameworkium.lite.ui.driver.AbstractDriver}
+ * enables BiDi when {@code userContexts=true}.
+ *
+ * @see DriverLifecycle
+ */
+public class UserContextDriverLifecycle implements DriverLifecycle {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    /** Methods of {@link WebDriver.TargetLocator} which change the current window. */
+    private static final Set<String> WINDOW_SWITCHING_METHODS = Set.of("window", "newWindow");
+
+    /** Methods of {@link WebDriver} which only return a helper, without sending a command. */
+    private static final Set<String> CLIENT_SIDE_METHODS = Set.of("navigate", "switchTo", "manage");
+
+    private final TestContext.Key<UserContextSession> currentSession =
+            new TestContext.Key<>("user context session");
+
+    private final Supplier<Driver> driverSupplier;
+    private final Function<WebDriver, BiDiContexts> bidiFactory;
+
+    /** Guards the shared browser and its current window. */
+    private final Object browserLock = new Object();
+
+    private final TimingStats lockWaits = new TimingStats("User context lock waits");
+    private final TimingStats lockHolds = new TimingStats("User context lock holds");
+
+    private Driver sharedDriver;
+    private WebDriver undecoratedDriver;
+    private BiDiContexts bidi;
+    private String currentWindowHandle;
+
+    /** @param driverSupplier the {@link Supplier} that creates the shared {@link Driver} */
+    public UserContextDriverLifecycle(Supplier<Driver> driverSupplier) {
+        this(driverSupplier, BiDiContexts::of);
+    }
+
+    /**
+     * @param driverSupplier the {@link Supplier} that creates the shared {@link Driver}
+     * @param bidiFactory    creates the BiDi commands for the undecorated shared browser
+     */
+    UserContextDriverLifecycle(
+            Supplier<Driver> driverSupplier, Function<WebDriver, BiDiContexts> bidiFactory) {
+        this.driverSupplier = driverSupplier;
+        this.bidiFactory = bidiFactory;
+    }
+
+    /**
+     * Launches the shared browser.
+     *
+     * @throws IllegalStateException if the shared browser is already running
+     */
+    @Override
+    public void initDriverPool() {
+        synchronized (browserLock) {
+            if (sharedDriver != null) {
+                throw new IllegalStateException("initDriverPool called when already initialised");
+            }
+            launchSharedBrowser();
+        }
+    }
+
+    private void launchSharedBrowser() {
+        sharedDriver = driverSupplier.get();
+        undecoratedDriver = DriverUnwrapper.unwrap(sharedDriver.getWebDriver());
+        bidi = bidiFactory.apply(undecoratedDriver);
+        currentWindowHandle = undecoratedDriver.getWindowHandle();
+    }
+
+    /**
+     * Creates a new user context, with a window, in the shared browser and
+     * sets it as the current thread's session.
+     */
+    @Override
+    public void initBrowserBeforeTest() {
+        synchronized (browserLock) {
+            if (sharedDriver == null) {
+                launchSharedBrowser();
+            }
+            String userContext = bidi.createUserContext();
+            try {
+                String windowHandle = bidi.createWindow(userContext);
+                var session = new UserContextSession(userContext, windowHandle);
+                // listeners go outside, so they see commands sent over BiDi too
+                session.webDriver = sharedDriver.decorate(
+                        new UserContextDecorator(session).decorate(undecoratedDriver));
+                TestContext.current().set(currentSession, session);
+            } catch (RuntimeException e) {
+                try {
+                    bidi.removeUserContext(userContext);
+                } catch (RuntimeException removeException) {
+                    e.addSuppressed(removeException);
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public WebDriver getWebDriver() {
+        UserContextSession session = TestContext.current().get(currentSession);
+        if (session == null) {
+            return null;
+        }
+        return session.webDriver;
+    }
+
+    /** Removes the current thread's user context, closing its windows. */
+    @Override
+    public void tearDownDriver() {
+        try {
+            removeUserContext(TestContext.current().get(currentSession));
+        } catch (Exception e) {
+            logger.warn("Failed to remove browser user context.");
+            logger.debug("Failed to remove browser user context.", e);
+        } finally {
+            TestContext.current().remove(currentSession);
+        }
+    }
+
+    private void removeUserContext(UserContextSession session) {
+        synchronized (browserLock) {
+            if (session.windowHandle.equals(currentWindowHandle)) {
+                currentWindowHandle = null;
+            }
+            bidi.removeUserContext(session.userContext);
+        }
+    }
+
+    /** Calls {@code quit()} on the shared browser. */
+    @Override
+    public void tearDownDriverPool() {
+        synchronized (browserLock) {
+            if (sharedDriver == null) {
+                return;
+            }
+            logger.info("{}; {}", lockWaits, lockHolds);
+            try {
+                sharedDriver.getWebDriver().quit();
+            } catch (Exception e) {
+                logger.error("Failed to quit the shared browser.");
+                logger.debug("Failed to quit the shared browser.", e);
+            }
+            sharedDriver = null; // allows re-initialisation
+        }
+    }
+
+    /**
+     * Removes the current thread's user context and, if the shared browser
+     * has stopped responding, relaunches it. Other tests running in the
+     * shared browser will fail.
+     */
+    @Override
+    public void reinitialiseCurrentDriver() {
+        UserContextSession session = TestContext.current().get(currentSession);
+        TestContext.current().remove(currentSession);
+        synchronized (browserLock) {
+            if (sharedDriver == null) {
+                return;
+            }
+            try {
+                if (session != null) {
+                    removeUserContext(session);
+                }
+                undecoratedDriver.getWindowHandles();
+            } catch (Exception e) {
+                logger.warn("Shared browser is not responding, relaunching it.");
+                logger.debug("Shared browser is not responding.", e);
+                try {
+                    sharedDriver.getWebDriver().quit();
+                } catch (Exception quitException) {
+                    logger.debug("Failed to quit the shared browser.", quitException);
+                }
+                launchSharedBrowser();
+            }
+        }
+    }
+
+    /** The user context and current window of one test. */
+    private static final class UserContextSession {
+
+        private final String userContext;
+        private String windowHandle;
+        private WebDriver webDriver;
+
+        private UserContextSession(String userContext, String windowHandle) {
+            this.userContext = userContext;
+            this.windowHandle = windowHandle;
+        }
+    }
+
+    /**
+     * The BiDi commands used, addressed to a user context or window, so they
+     * need not switch the current window.
+     */
+    interface BiDiContexts {
+
+        String createUserContext();
+
+        /** @return the handle of a new window in the user context */
+        String createWindow(String userContext);
+
+        void removeUserContext(String userContext);
+
+        /** Navigates the window, waiting as the session's page load strategy does. */
+        void navigate(String windowHandle, String url);
+
+        /** @return the base64 encoded PNG screenshot of the window */
+        String captureScreenshot(String windowHandle);
+
+        static BiDiContexts of(WebDriver driver) {
+            var browser = new Browser(driver);
+            ReadinessState readiness = readinessState(driver);
+            return new BiDiContexts() {
+                @Override
+                public String createUserContext() {
+                    return browser.createUserContext();
+                }
+
+                @Override
+                public String createWindow(String userContext) {
+                    var parameters =
+                            new CreateContextParameters(WindowType.WINDOW).userContext(userContext);
+                    return new BrowsingContext(driver, parameters).getId();
+                }
+
+                @Override
+                public void removeUserContext(String userContext) {
+                    browser.removeUserContext(userContext);
+                }
+
+                @Override
+                public void navigate(String windowHandle, String url) {
+                    new BrowsingContext(driver, windowHandle).navigate(url, readiness);
+                }
+
+                @Override
+                public String captureScreenshot(String windowHandle) {
+                    return new BrowsingContext(driver, windowHandle).captureScreenshot();
+                }
+            };
+        }
+
+        private static ReadinessState readinessState(WebDriver driver) {
+            Object strategy = driver instanceof HasCapabilities
+                    ? ((HasCapabilities) driver).getCapabilities().getCapability("pageLoadStrategy")
+                    : null;
+            if (PageLoadStrategy.NONE.toString().equals(strategy)) {
+                return ReadinessState.NONE;
+            } else if (PageLoadStrategy.EAGER.toString().equals(strategy)) {
+                return ReadinessState.INTERACTIVE;
+            }
+            return ReadinessState.COMPLETE;
+        }
+    }
+
+    /**
+     * Switches the shared browser to the session's window before each
+     * command, except those sent over BiDi to the session's window.
+     */
+    private final class UserContextDecorator extends WebDriverDecorator<WebDriver> {
+
+        private final UserContextSession session;
+
+        private UserContextDecorator(UserContextSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public Object call(Decorated<?> target, Method method, Object[] args) throws Throwable {
+            Object original = target.getOriginal();
+            String url = navigationUrl(original, method, args);
+            if (url != null) {
+                bidi.navigate(session.windowHandle, url);
+                return null;
+            }
+            if (original instanceof WebDriver && CLIENT_SIDE_METHODS.contains(method.getName())) {
+                return super.call(target, method, args);
+            }
+            // elements take screenshots too, which are sent under the lock
+            if (original instanceof WebDriver && "getScreenshotAs".equals(method.getName())) {
+                return ((OutputType<?>) args[0])
+                        .convertFromBase64Png(bidi.captureScreenshot(session.windowHandle));
+            }
+            long waitStart = System.nanoTime();
+            synchronized (browserLock) {
+                long holdStart = System.nanoTime();
+                lockWaits.record(Duration.ofNanos(holdStart - waitStart));
+                try {
+                    if (!session.windowHandle.equals(currentWindowHandle)) {
+                        undecoratedDriver.switchTo().window(session.windowHandle);
+                        currentWindowHandle = session.windowHandle;
+                    }
+                    Object result = super.call(target, method, args);
+                    if (original instanceof WebDriver.TargetLocator
+                            && WINDOW_SWITCHING_METHODS.contains(method.getName())) {
+                        session.windowHandle = undecoratedDriver.getWindowHandle();
+                        currentWindowHandle = session.windowHandle;
+                    }
+                    return result;
+                } finally {
+                    lockHolds.record(Duration.ofNanos(System.nanoTime() - holdStart));
+                }
+            }
+        }
+
+        /** @return the URL if the method is {@code get} or {@code navigate().to}, else null */
+        private String navigationUrl(Object original, Method method, Object[] args) {
+            boolean isGet = original instanceof WebDriver && "get".equals(method.getName());
+            boolean isNavigateTo =
+                    original instanceof WebDriver.Navigation && "to".equals(method.getName());
+            if ((isGet || isNavigateTo) && args != null && args.length == 1 && args[0] != null) {
+                return args[0].toString();
+            }
+            return null;
+        }
+    }
+
+    public TimingStats getLockWaits() {
+        return lockWaits;
+    }
+
+    public TimingStats getLockHolds() {
+        return lockHolds;
+    }
+}
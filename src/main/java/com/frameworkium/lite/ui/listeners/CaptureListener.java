@@ -67,8 +67,7 @@ public class CaptureListener implements WebDriverListener, ITestListener {
                 return;
             }
 
-            var driver = uiTestLifecycle.getWebDriver();
-            if (driver == null) {
+            if (!uiTestLifecycle.isBrowserAcquired()) {
                 return;
             }
 
@@ -75,6 +75,7 @@ public class ScreenshotListener extends TestListenerAdapter {
     }
 
     private boolean isScreenshotSupported(ITestResult testResult) {
-        return testResult.getInstance() instanceof BaseUITest;
+        return testResult.getInstance() instanceof BaseUITest
+                && UITestLifecycle.get().isBrowserAcquired();
     }
 }
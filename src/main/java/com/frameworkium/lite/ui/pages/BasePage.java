@@ -1,6 +1,8 @@
 package com.frameworkium.lite.ui.pages;
 
+import com.frameworkium.lite.common.properties.Property;
 import com.frameworkium.lite.htmlelements.loader.HtmlElementLoader;
+import com.frameworkium.lite.ui.ExtraExpectedConditions;
 import com.frameworkium.lite.ui.UITestLifecycle;
 import com.frameworkium.lite.ui.annotations.Visible;
 import com.frameworkium.lite.ui.capture.ScreenshotCapture;
@@ -9,9 +11,11 @@ import com.frameworkium.lite.ui.capture.model.Command;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openqa.selenium.*;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.Wait;
 
 import java.time.Duration;
+import java.util.List;
 
 public abstract class BasePage<T extends BasePage<T>> {
 
@@ -100,9 +104,15 @@ public abstract class BasePage<T extends BasePage<T>> {
      * <li>Initialises fields with lazy proxies</li>
      * <li>Waits for Javascript events including document ready & JS frameworks (if applicable)</li>
      * <li>Processes Frameworkium visibility annotations e.g. {@link Visible}</li>
+     * <li>Waits for the page's {@link #readinessConditions()}</li>
      * <li>Log page load to Capture</li>
      * </ul>
      *
+     * <p>With {@code pageLoadStrategy=eager} or {@code none}, the browser does
+     * not wait for the page's sub-resources, e.g. images, to load, so the page
+     * is ready as soon as its annotated elements and readiness conditions are.
+     * With {@code none}, this also waits for the document to be parsed.
+     *
      * @return the PageObject, of type T, populated with lazy proxies which are
      *         checked for visibility based upon appropriate Frameworkium annotations.
      */
@@ -110,12 +120,34 @@ public abstract class BasePage<T extends BasePage<T>> {
     public T get() {
 
         initPageObjectFields();
+        if (isPageLoadStrategyNone()) {
+            wait.until(ExtraExpectedConditions.documentInteractive());
+        }
         visibility.waitForAnnotatedElementVisibility(this);
+        readinessConditions().forEach(wait::until);
         takePageLoadedScreenshotAndSendToCapture();
 
         return (T) this;
     }
 
+    /**
+     * Conditions, beyond the visibility of annotated elements, which must hold
+     * before the page is used, e.g. {@link ExtraExpectedConditions#jQueryAjaxDone()}.
+     * Override where the page needs more than its elements to be ready,
+     * especially with an {@code eager} or {@code none} page load strategy.
+     *
+     * @return the conditions waited for, in order, by {@link #get()}
+     */
+    protected List<ExpectedCondition<?>> readinessConditions() {
+        return List.of();
+    }
+
+    private static boolean isPageLoadStrategyNone() {
+        return Property.PAGE_LOAD_STRATEGY.isSpecified()
+                && PageLoadStrategy.NONE
+                        == PageLoadStrategy.fromString(Property.PAGE_LOAD_STRATEGY.getValue());
+    }
+
     /**
      * Method to initialise the fields in the page object.
      * Can be overridden where a custom implementation is desired.
@@ -15,6 +15,8 @@ import java.time.Duration
 
 class ExtraExpectedConditionsSpec extends Specification {
 
+    interface JavascriptWebDriver extends WebDriver, JavascriptExecutor {}
+
     // used for ExtraExpectedConditions that interact with an element
     def mockElement = Mock(WebElement)
     def wait = new FluentWait<>(Mock(WebDriver), Clock.systemUTC(), Sleeper.SYSTEM_SLEEPER)
@@ -119,6 +121,21 @@ class ExtraExpectedConditionsSpec extends Specification {
 
     }
 
+    // documentInteractive()
+
+    def "waiting for documentInteractive polls the ready state until the document is parsed"() {
+        given:
+            def driver = Mock(JavascriptWebDriver)
+            def driverWait = new FluentWait<WebDriver>(driver, Clock.systemUTC(), Sleeper.SYSTEM_SLEEPER)
+                    .pollingEvery(Duration.ofMillis(1))
+                    .withTimeout(Duration.ofMillis(100))
+        when:
+            driverWait.until(ExtraExpectedConditions.documentInteractive())
+        then:
+            2 * driver.executeScript({ it.contains("readyState") }) >>> [false, true]
+            noExceptionThrown()
+    }
+
     def static listSize = 3
     def webElements = [mockElement] * listSize
 
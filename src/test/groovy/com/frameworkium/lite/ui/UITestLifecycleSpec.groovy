@@ -0,0 +1,67 @@
+package com.frameworkium.lite.ui
+
+import com.frameworkium.lite.ui.context.TestContext
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser
+import com.frameworkium.lite.ui.driver.lifecycle.DriverLifecycle
+import com.frameworkium.lite.ui.driver.lifecycle.KeyedDriverLifecycle
+import org.openqa.selenium.JavascriptExecutor
+import org.openqa.selenium.WebDriver
+import spock.lang.Specification
+
+class UITestLifecycleSpec extends Specification {
+
+    interface JavascriptWebDriver extends WebDriver, JavascriptExecutor {}
+
+    def webDriver = Mock(JavascriptWebDriver)
+    def browserAcquired = false
+    def lifecycle = Mock(DriverLifecycle) {
+        getWebDriver() >> { browserAcquired ? webDriver : null }
+    }
+
+    def setup() {
+        UITestLifecycle.beforeSuite(new KeyedDriverLifecycle({ lifecycle }, Browser.CHROME))
+    }
+
+    def "a lazy browser is only acquired when the test first uses it"() {
+        given:
+            def context = new TestContext()
+        when:
+            def driver = context.call {
+                UITestLifecycle.get().beforeTestMethod("test", Browser.CHROME, null, true)
+                UITestLifecycle.get().getWebDriver()
+            }
+        then:
+            0 * lifecycle.initBrowserBeforeTest()
+            !context.call { UITestLifecycle.get().isBrowserAcquired() }
+
+        when:
+            def title = context.call { driver.getTitle() }
+        then:
+            1 * lifecycle.initBrowserBeforeTest() >> { browserAcquired = true }
+            1 * webDriver.getTitle() >> "title"
+            title == "title"
+            context.call { UITestLifecycle.get().isBrowserAcquired() }
+
+        when:
+            context.run { UITestLifecycle.get().afterTestMethod() }
+        then:
+            1 * lifecycle.tearDownDriver()
+    }
+
+    def "a lazy browser kept after the test cannot acquire a browser"() {
+        given:
+            def context = new TestContext()
+            def driver = context.call {
+                UITestLifecycle.get().beforeTestMethod("test", Browser.CHROME, null, true)
+                def lazy = UITestLifecycle.get().getWebDriver()
+                UITestLifecycle.get().afterTestMethod()
+                lazy
+            }
+        when:
+            context.run { driver.getTitle() }
+        then:
+            thrown(IllegalStateException)
+            0 * lifecycle.initBrowserBeforeTest()
+            0 * lifecycle.tearDownDriver()
+    }
+}
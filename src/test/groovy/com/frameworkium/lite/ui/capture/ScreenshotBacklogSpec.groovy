@@ -0,0 +1,85 @@
+package com.frameworkium.lite.ui.capture
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+import static com.frameworkium.lite.ui.capture.ScreenshotBacklog.Admission.*
+import static com.frameworkium.lite.ui.capture.ScreenshotBacklog.Policy.*
+
+class ScreenshotBacklogSpec extends Specification {
+
+    def "BLOCK waits for space to be released"() {
+        given:
+            def sut = new ScreenshotBacklog(100, BLOCK, Duration.ofSeconds(10))
+            sut.admit(80, false)
+
+        when:
+            def admission = CompletableFuture.supplyAsync { sut.admit(40, false) }
+            Thread.sleep(100)
+
+        then:
+            !admission.done
+
+        when:
+            sut.release(80)
+
+        then:
+            admission.get(5, TimeUnit.SECONDS) == ADMITTED
+            sut.pendingBytes == 40
+            sut.admitted == 2
+            sut.blocked == 1
+    }
+
+    def "DROP_INTERMEDIATE drops intermediate screenshots but keeps final ones"() {
+        given:
+            def sut = new ScreenshotBacklog(100, DROP_INTERMEDIATE, Duration.ofMillis(50))
+            sut.admit(80, false)
+
+        expect:
+            sut.admit(40, false) == DROPPED
+            sut.admit(40, true) == ADMITTED
+            sut.pendingBytes == 120
+            sut.dropped == 1
+            sut.blocked == 1
+    }
+
+    def "SPILL writes screenshots which do not fit to disk"() {
+        given:
+            def sut = new ScreenshotBacklog(100, SPILL, Duration.ofSeconds(10))
+            sut.admit(80, false)
+            byte[] screenshot = (1..40).collect { it as byte }
+
+        when:
+            def admission = sut.admit(screenshot.length, false)
+            def file = sut.spill(screenshot)
+
+        then:
+            admission == SPILLED
+            sut.pendingBytes == 80
+            sut.readSpilled(file) == screenshot
+            !Files.exists(file)
+            sut.spilled == 1
+    }
+
+    def "spilled screenshots which were never read back are deleted"() {
+        given:
+            def sut = new ScreenshotBacklog(100, SPILL, Duration.ofSeconds(10))
+            def file = sut.spill([1, 2, 3] as byte[])
+
+        when:
+            sut.deleteSpilled()
+
+        then:
+            !Files.exists(file)
+            !Files.exists(file.parent)
+    }
+
+    def "a screenshot larger than the budget is admitted when nothing is pending"() {
+        expect:
+            new ScreenshotBacklog(100, BLOCK, Duration.ZERO).admit(500, false) == ADMITTED
+    }
+}
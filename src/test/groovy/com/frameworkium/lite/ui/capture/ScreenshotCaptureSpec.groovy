@@ -0,0 +1,67 @@
+package com.frameworkium.lite.ui.capture
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.frameworkium.lite.ui.capture.model.Command
+import com.frameworkium.lite.ui.capture.model.message.CreateScreenshot
+import org.openqa.selenium.OutputType
+import org.openqa.selenium.TakesScreenshot
+import org.openqa.selenium.WebDriver
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.zip.GZIPInputStream
+
+class ScreenshotCaptureSpec extends Specification {
+
+    def screenshot = [1, 2, 3, 4] as byte[]
+    def message = new CreateScreenshot("exec1", new Command("click", "css", "#id"), "http://x/", null, screenshot)
+
+    def "screenshot is serialised as base64 from its bytes"() {
+        when:
+            def json = new ObjectMapper().readTree(ScreenshotCapture.serialise(message, false))
+        then:
+            json.get("screenshotBase64").asText() == Base64.encoder.encodeToString(screenshot)
+            json.get("executionID").asText() == "exec1"
+            !json.has("errorMessage")
+    }
+
+    def "serialised message can be gzipped"() {
+        when:
+            def gzipped = ScreenshotCapture.serialise(message, true)
+            def json = new ObjectMapper().readTree(new GZIPInputStream(new ByteArrayInputStream(gzipped)))
+        then:
+            json.get("screenshotBase64").binaryValue() == screenshot
+    }
+
+    def "spooled message is ready to send once its screenshot is compressed"() {
+        when:
+            def spooled = ScreenshotCapture.serialise(message, false)
+            def json = new ObjectMapper().readTree(ScreenshotCapture.compressMessage(spooled))
+        then:
+            json.get("executionID").asText() == "exec1"
+            json.get("command").get("action").asText() == "click"
+            // not a PNG, so sent as it is
+            json.get("screenshotBase64").binaryValue() == screenshot
+    }
+
+    interface ScreenshotWebDriver extends WebDriver, TakesScreenshot {}
+
+    def "screenshots are taken as bytes, without temporary files"() {
+        given:
+            def driver = Mock(ScreenshotWebDriver) {
+                getCurrentUrl() >> "http://x/"
+            }
+            def tmpDir = Path.of(System.getProperty("java.io.tmpdir"))
+            def tempFilesBefore = Files.list(tmpDir).withCloseable { it.toList() }
+        when:
+            new ScreenshotCapture("test1", "exec1")
+                    .takeAndSendScreenshot(new Command("click", "css", "#id"), driver)
+        then:
+            1 * driver.getScreenshotAs(OutputType.BYTES) >> screenshot
+            0 * driver.getScreenshotAs(OutputType.FILE)
+            Files.list(tmpDir).withCloseable { it.toList() }
+                    .findAll { !tempFilesBefore.contains(it) && it.fileName.toString().startsWith("screenshot") }
+                    .isEmpty()
+    }
+}
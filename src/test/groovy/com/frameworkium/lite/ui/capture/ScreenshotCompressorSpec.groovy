@@ -0,0 +1,71 @@
+package com.frameworkium.lite.ui.capture
+
+import spock.lang.Specification
+
+import javax.imageio.ImageIO
+import java.awt.image.BufferedImage
+
+class ScreenshotCompressorSpec extends Specification {
+
+    static byte[] png(BufferedImage image) {
+        def output = new ByteArrayOutputStream()
+        ImageIO.write(image, "png", output)
+        output.toByteArray()
+    }
+
+    static BufferedImage gradient(int width, int height) {
+        def image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)
+        for (x in 0..<width) {
+            for (y in 0..<height) {
+                image.setRGB(x, y, (x * 255 / width as int) << 16 | (y * 255 / height as int) << 8 | ((x + y) % 256))
+            }
+        }
+        image
+    }
+
+    static Set<Integer> colours(BufferedImage image) {
+        image.getRGB(0, 0, image.width, image.height, null, 0, image.width) as Set
+    }
+
+    def "screenshot is reduced to at most the given number of colours"() {
+        given:
+            def original = png(gradient(300, 200))
+            def sut = new ScreenshotCompressor(16, 0, 6)
+        when:
+            def compressed = ImageIO.read(new ByteArrayInputStream(sut.compress(original)))
+        then:
+            compressed.width == 300
+            compressed.height == 200
+            colours(compressed).size() <= 16
+            sut.timings.count == 1
+    }
+
+    def "few colours are kept close to the original"() {
+        given:
+            def image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB)
+            image.setRGB(0, 0, 0xFF0000)
+            def quantised = new ScreenshotCompressor(128, 0, 6).quantise(image)
+        expect:
+            colours(quantised).size() == 2
+            (quantised.getRGB(0, 0) >> 16 & 0xFF) >= 248
+            (quantised.getRGB(5, 5) & 0xFFFFFF) < 0x080808
+    }
+
+    def "wide screenshots are scaled down"() {
+        given:
+            def sut = new ScreenshotCompressor(128, 100, 9)
+        when:
+            def compressed = ImageIO.read(new ByteArrayInputStream(sut.compress(png(gradient(400, 200)))))
+        then:
+            compressed.width == 100
+            compressed.height == 50
+            sut.bytesSaved > 0
+    }
+
+    def "invalid settings are rejected"() {
+        when:
+            new ScreenshotCompressor(1, 0, 6)
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,115 @@
+package com.frameworkium.lite.ui.capture
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ScreenshotSpoolSpec extends Specification {
+
+    /** Not a running process, so its segments are replayed. */
+    static final long DEAD_PID = Long.MAX_VALUE
+
+    @TempDir
+    Path directory
+
+    static List<Path> files(Path directory) {
+        Files.list(directory).withCloseable { it.toList() }
+    }
+
+    def "segments are deleted once closed and all records are acknowledged"() {
+        given:
+            def sut = new ScreenshotSpool(directory, 10, DEAD_PID)
+
+        when:
+            def records = (1..3).collect { sut.append("message $it".bytes) }
+            records.each { sut.acknowledge(it) }
+            sut.close()
+
+        then:
+            files(directory).empty
+            sut.unacknowledged == 0
+    }
+
+    def "records acknowledged after their segment is closed are still deleted"() {
+        given:
+            def sut = new ScreenshotSpool(directory, 1024, DEAD_PID)
+            def record = sut.append("message".bytes)
+            sut.close()
+
+        expect:
+            sut.read(record) == "message".bytes
+
+        when:
+            sut.acknowledge(record)
+
+        then:
+            files(directory).empty
+    }
+
+    def "unacknowledged records are replayed, then their segments deleted"() {
+        given:
+            def sut = new ScreenshotSpool(directory, 1024, DEAD_PID)
+            def first = sut.append("first".bytes)
+            sut.append("second".bytes)
+            sut.acknowledge(first)
+            sut.close()
+            def sent = []
+
+        expect:
+            sut.unacknowledged == 1
+
+        when:
+            def count = ScreenshotSpool.replay(directory) { sent << new String(it); true }
+
+        then:
+            count == 1
+            sent == ["second"]
+            files(directory).empty
+    }
+
+    def "segments of live processes are not replayed"() {
+        given:
+            def sut = new ScreenshotSpool(directory, 1024)
+            sut.append("message".bytes)
+            sut.close()
+
+        expect:
+            ScreenshotSpool.replay(directory) { true } == 0
+            files(directory).size() == 2
+    }
+
+    def "records which fail to send are kept for the next replay"() {
+        given:
+            def sut = new ScreenshotSpool(directory, 1024, DEAD_PID)
+            sut.append("message".bytes)
+            sut.close()
+
+        when:
+            def count = ScreenshotSpool.replay(directory) { false }
+
+        then:
+            count == 0
+            ScreenshotSpool.replay(directory) { true } == 1
+            files(directory).empty
+    }
+
+    def "replay stops at a record torn by a crash"() {
+        given:
+            def sut = new ScreenshotSpool(directory, 1024, DEAD_PID)
+            sut.append("complete".bytes)
+            sut.append("torn".bytes)
+            sut.close()
+            def segment = files(directory).find { it.toString().endsWith(ScreenshotSpool.SEGMENT_SUFFIX) }
+            byte[] bytes = Files.readAllBytes(segment)
+            Files.write(segment, Arrays.copyOf(bytes, bytes.length - 2))
+            def sent = []
+
+        when:
+            ScreenshotSpool.replay(directory) { sent << new String(it); true }
+
+        then:
+            sent == ["complete"]
+    }
+}
@@ -0,0 +1,71 @@
+package com.frameworkium.lite.ui.context
+
+import com.frameworkium.lite.ui.driver.Driver
+import com.frameworkium.lite.ui.driver.lifecycle.SingleUseDriverLifecycle
+import org.openqa.selenium.WebDriver
+import spock.lang.Specification
+
+import java.util.concurrent.Executors
+
+class TestContextSpec extends Specification {
+
+    def key = new TestContext.Key<String>("value")
+
+    def "each thread has its own default context"() {
+        given:
+            TestContext.current().set(key, "main")
+        when:
+            def otherThreadValue
+            Thread.start { otherThreadValue = TestContext.current().get(key) }.join()
+        then:
+            otherThreadValue == null
+            TestContext.current().get(key) == "main"
+        cleanup:
+            TestContext.current().remove(key)
+    }
+
+    def "run binds the context only for the duration of the call"() {
+        given:
+            def context = new TestContext()
+            context.set(key, "bound")
+        when:
+            def boundValue
+            context.run { boundValue = TestContext.current().get(key) }
+        then:
+            boundValue == "bound"
+            TestContext.current().get(key) == null
+    }
+
+    def "wrapped tasks run in the wrapping context on any thread"() {
+        given:
+            def context = new TestContext()
+            context.set(key, "bound")
+            def executor = Executors.newSingleThreadExecutor()
+        when:
+            def wrappedValue
+            def unwrappedValue
+            context.run {
+                executor.submit(TestContext.wrap { wrappedValue = TestContext.current().get(key) }).get()
+                executor.submit({ unwrappedValue = TestContext.current().get(key) } as Runnable).get()
+            }
+        then:
+            wrappedValue == "bound"
+            unwrappedValue == null
+        cleanup:
+            executor.shutdown()
+    }
+
+    def "driver lifecycle state follows the context rather than the thread"() {
+        given:
+            def webDriver = Mock(WebDriver)
+            def sut = new SingleUseDriverLifecycle({ Mock(Driver) { getWebDriver() >> webDriver } })
+            def context = new TestContext()
+            context.run { sut.initBrowserBeforeTest() }
+        when:
+            def otherThreadDriver
+            Thread.start { context.run { otherThreadDriver = sut.getWebDriver() } }.join()
+        then:
+            otherThreadDriver == webDriver
+            sut.getWebDriver() == null
+    }
+}
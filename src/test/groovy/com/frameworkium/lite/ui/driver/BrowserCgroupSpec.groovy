@@ -0,0 +1,37 @@
+package com.frameworkium.lite.ui.driver
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class BrowserCgroupSpec extends Specification {
+
+    @TempDir
+    Path parent
+
+    def "cgroup is created with CPU and memory limits"() {
+        when:
+            def cgroup = BrowserCgroup.create(parent, "browser-1", 50, 512)
+        then:
+            cgroup.isPresent()
+            Files.readString(parent.resolve("browser-1/cpu.max")) == "50000 100000"
+            Files.readString(parent.resolve("browser-1/memory.max")) == "536870912"
+    }
+
+    def "usage is read from cpu.stat and memory.peak"() {
+        given:
+            def cgroup = BrowserCgroup.create(parent, "browser-1", 0, 0).get()
+            Files.writeString(parent.resolve("browser-1/cpu.stat"), "usage_usec 123456\nuser_usec 100000\n")
+            Files.writeString(parent.resolve("browser-1/memory.peak"), "1048576\n")
+        expect:
+            cgroup.cpuUsageMicros().getAsLong() == 123456
+            cgroup.peakMemoryBytes().getAsLong() == 1048576
+    }
+
+    def "no cgroup is created when the parent does not exist"() {
+        expect:
+            BrowserCgroup.create(parent.resolve("missing"), "browser-1", 50, 0).isEmpty()
+    }
+}
@@ -0,0 +1,37 @@
+package com.frameworkium.lite.ui.driver
+
+import org.openqa.selenium.WebDriver
+import spock.lang.Requires
+import spock.lang.Specification
+
+class BrowserProcessesSpec extends Specification {
+
+    def "driver service is not found for a driver without a local server"() {
+        expect:
+            BrowserProcesses.findDriverService(Mock(WebDriver)).isEmpty()
+    }
+
+    def "driver service is not found for a remote server"() {
+        expect:
+            BrowserProcesses.findDriverService(new URL("http://grid.example.com:4444")).isEmpty()
+    }
+
+    @Requires({ os.linux && new File("/bin/sh").canExecute() })
+    def "driver service is found by the port of its URL before any session exists"() {
+        given: "a child process started with a --port= argument, like a driver service"
+            def service = new ProcessBuilder("/bin/sh", "-c", "sleep 60", "--port=45678").start()
+
+        expect:
+            BrowserProcesses.findDriverService(new URL("http://localhost:45678")).get().pid() == service.pid()
+            BrowserProcesses.findDriverService(new URL("http://localhost:45679")).isEmpty()
+
+        cleanup:
+            service?.destroyForcibly()
+    }
+
+    @Requires({ os.linux })
+    def "resident memory of a process tree is read from /proc"() {
+        expect:
+            BrowserProcesses.residentMemoryBytes(ProcessHandle.current()).getAsLong() > 0
+    }
+}
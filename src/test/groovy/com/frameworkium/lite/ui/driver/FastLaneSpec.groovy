@@ -0,0 +1,80 @@
+package com.frameworkium.lite.ui.driver
+
+import org.openqa.selenium.JavascriptExecutor
+import org.openqa.selenium.OutputType
+import org.openqa.selenium.TakesScreenshot
+import org.openqa.selenium.WebDriver
+import org.openqa.selenium.WebElement
+import org.openqa.selenium.WrapsDriver
+import org.openqa.selenium.WrapsElement
+import org.openqa.selenium.devtools.Connection
+import org.openqa.selenium.devtools.DevTools
+import org.openqa.selenium.devtools.HasDevTools
+import org.openqa.selenium.remote.http.HttpClient
+import spock.lang.Specification
+
+import java.util.function.Function
+
+class FastLaneSpec extends Specification {
+
+    interface JavascriptWebDriver extends WebDriver, JavascriptExecutor {}
+
+    interface ScreenshotWebDriver extends WebDriver, TakesScreenshot {}
+
+    interface DecoratedJavascriptWebDriver extends JavascriptWebDriver, WrapsDriver {}
+
+    interface WrappingElement extends WebElement, WrapsElement {}
+
+    interface DevToolsWebDriver extends WebDriver, HasDevTools {}
+
+    interface DecoratedDevToolsWebDriver extends DevToolsWebDriver, WrapsDriver {}
+
+    def "screenshots fall back to WebDriver when disabled"() {
+        given:
+            def driver = Mock(ScreenshotWebDriver)
+        when:
+            def screenshot = FastLane.screenshot(driver)
+        then:
+            1 * driver.getScreenshotAs(OutputType.BYTES) >> ([1, 2, 3] as byte[])
+            screenshot == [1, 2, 3] as byte[]
+    }
+
+    def "scripts run on the decorated driver when disabled"() {
+        given:
+            def driver = Mock(JavascriptWebDriver)
+        expect:
+            FastLane.javascriptExecutor(driver).is(driver)
+    }
+
+    def "undecorated executor runs scripts, with unwrapped elements, on the undecorated driver"() {
+        given:
+            def undecorated = Mock(JavascriptWebDriver)
+            def decorated = Mock(DecoratedJavascriptWebDriver) { getWrappedDriver() >> undecorated }
+            def element = Mock(WebElement)
+            def wrappingElement = Mock(WrappingElement) { getWrappedElement() >> element }
+        when:
+            def result = FastLane.undecoratedJavascriptExecutor(decorated)
+                    .executeScript("return 1;", wrappingElement, "text")
+        then:
+            1 * undecorated.executeScript("return 1;", [element, "text"] as Object[]) >> 1L
+            0 * decorated.executeScript(*_)
+            result == 1L
+    }
+
+    def "DevTools screenshots read the window handle from the undecorated driver"() {
+        given:
+            // DevTools is a class, constructed with a connection whose socket is a mock
+            def connection = new Connection(Mock(HttpClient), "ws://localhost/devtools")
+            def devTools = Mock(DevTools, constructorArgs: [{ null } as Function, connection])
+            def undecorated = Mock(DevToolsWebDriver) { maybeGetDevTools() >> Optional.of(devTools) }
+            def decorated = Mock(DecoratedDevToolsWebDriver) { getWrappedDriver() >> undecorated }
+        when:
+            def screenshot = FastLane.cdpScreenshot(decorated)
+        then:
+            1 * undecorated.getWindowHandle() >> "target1"
+            0 * decorated.getWindowHandle()
+            1 * devTools.createSession("target1")
+            1 * devTools.send(_) >> "AQID"
+            screenshot.get() == [1, 2, 3] as byte[]
+    }
+}
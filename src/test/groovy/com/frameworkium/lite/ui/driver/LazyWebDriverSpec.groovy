@@ -0,0 +1,46 @@
+package com.frameworkium.lite.ui.driver
+
+import org.openqa.selenium.JavascriptExecutor
+import org.openqa.selenium.WebDriver
+import spock.lang.Specification
+
+class LazyWebDriverSpec extends Specification {
+
+    interface JavascriptWebDriver extends WebDriver, JavascriptExecutor {}
+
+    def realDriver = Mock(JavascriptWebDriver)
+    def acquisitions = 0
+    def sut = LazyWebDriver.create({ acquisitions++; realDriver })
+
+    def "browser is not acquired until the driver is used"() {
+        when:
+            sut.toString()
+            sut.hashCode()
+        then:
+            acquisitions == 0
+
+        when:
+            def title = sut.getTitle()
+        then:
+            1 * realDriver.getTitle() >> "title"
+            title == "title"
+            acquisitions == 1
+    }
+
+    def "driver can be used as a JavascriptExecutor and unwrapped"() {
+        when:
+            ((JavascriptExecutor) sut).executeScript("return 1")
+        then:
+            1 * realDriver.executeScript("return 1")
+            DriverUnwrapper.unwrap(sut) == realDriver
+    }
+
+    def "exceptions from the real driver are rethrown unwrapped"() {
+        given:
+            realDriver.getTitle() >> { throw new IllegalStateException("closed") }
+        when:
+            sut.getTitle()
+        then:
+            thrown IllegalStateException
+    }
+}
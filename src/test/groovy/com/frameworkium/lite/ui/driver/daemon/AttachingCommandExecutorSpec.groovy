@@ -0,0 +1,52 @@
+package com.frameworkium.lite.ui.driver.daemon
+
+import com.sun.net.httpserver.HttpServer
+import org.openqa.selenium.ImmutableCapabilities
+import org.openqa.selenium.remote.RemoteWebDriver
+import spock.lang.Specification
+
+class AttachingCommandExecutorSpec extends Specification {
+
+    HttpServer driverService
+    List<String> requests = []
+
+    def setup() {
+        driverService = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        driverService.createContext("/") { exchange ->
+            requests << "${exchange.requestMethod} ${exchange.requestURI.path}".toString()
+            def body = '{"value": "http://example.com/"}'.bytes
+            exchange.responseHeaders.set("Content-Type", "application/json")
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.withCloseable { it.write(body) }
+        }
+        driverService.start()
+    }
+
+    def cleanup() {
+        driverService.stop(0)
+    }
+
+    def "attaches to the existing session and releases it on quit"() {
+        given:
+            def released = 0
+            def executor = new AttachingCommandExecutor(
+                    new URL("http://localhost:${driverService.address.port}"),
+                    "abc123",
+                    [browserName: "chrome"],
+                    { released++ })
+        when:
+            def driver = new RemoteWebDriver(executor, new ImmutableCapabilities())
+        then:
+            driver.sessionId.toString() == "abc123"
+            driver.capabilities.browserName == "chrome"
+            requests.isEmpty()
+
+        when:
+            def url = driver.currentUrl
+            driver.quit()
+        then:
+            url == "http://example.com/"
+            requests == ["GET /session/abc123/url"]
+            released == 1
+    }
+}
@@ -0,0 +1,156 @@
+package com.frameworkium.lite.ui.driver.daemon
+
+import com.frameworkium.lite.ui.driver.Driver
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser
+import com.frameworkium.lite.ui.driver.lifecycle.BrowserResetStrategy
+import com.sun.net.httpserver.HttpServer
+import io.restassured.RestAssured
+import io.restassured.path.json.JsonPath
+import org.openqa.selenium.ImmutableCapabilities
+import org.openqa.selenium.WebDriver
+import org.openqa.selenium.remote.HttpCommandExecutor
+import org.openqa.selenium.remote.RemoteWebDriver
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicInteger
+
+class BrowserDaemonSpec extends Specification {
+
+    HttpServer driverService
+    List<String> requests = Collections.synchronizedList([])
+    def sessionCount = new AtomicInteger()
+    def launches = new AtomicInteger()
+    List<String> resets = Collections.synchronizedList([])
+
+    BrowserDaemon daemon
+    String daemonUrl
+
+    def setup() {
+        driverService = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        driverService.createContext("/") { exchange ->
+            def request = "${exchange.requestMethod} ${exchange.requestURI.path}".toString()
+            requests << request
+            def body = (request == "POST /session"
+                    ? """{"value": {"sessionId": "s${sessionCount.incrementAndGet()}", "capabilities": {"browserName": "chrome"}}}"""
+                    : '{"value": null}').bytes
+            exchange.responseHeaders.set("Content-Type", "application/json")
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.withCloseable { it.write(body) }
+        }
+        driverService.start()
+    }
+
+    def cleanup() {
+        daemon?.stop()
+        driverService.stop(0)
+    }
+
+    def driverServiceUrl() {
+        new URL("http://localhost:${driverService.address.port}")
+    }
+
+    def startDaemon(Duration leaseTimeout) {
+        daemon = new BrowserDaemon(
+                { browser ->
+                    launches.incrementAndGet()
+                    def webDriver = new RemoteWebDriver(
+                            new HttpCommandExecutor(driverServiceUrl()),
+                            new ImmutableCapabilities("browserName", "chrome"))
+                    [getWebDriver: { webDriver }] as Driver
+                },
+                { webDriver -> resets << webDriver.sessionId.toString() } as BrowserResetStrategy,
+                leaseTimeout)
+        daemonUrl = "http://localhost:${daemon.start(0)}"
+    }
+
+    JsonPath lease() {
+        RestAssured.given().baseUri(daemonUrl).queryParam("browser", "chrome")
+                .post("/lease").then().statusCode(200).extract().jsonPath()
+    }
+
+    int post(String path, String sessionId) {
+        RestAssured.given().baseUri(daemonUrl).queryParam("sessionId", sessionId)
+                .post(path).then().extract().statusCode()
+    }
+
+    JsonPath status() {
+        RestAssured.given().baseUri(daemonUrl).get("/status").then().extract().jsonPath()
+    }
+
+    def "a released session is reset and leased again instead of launching another"() {
+        given:
+            startDaemon(Duration.ofHours(1))
+
+        when:
+            def first = lease()
+            def released = post("/release", first.getString("sessionId"))
+            def second = lease()
+
+        then:
+            first.getString("sessionId") == "s1"
+            first.getString("serverUrl") == driverServiceUrl().toString()
+            first.getString("capabilities.browserName") == "chrome"
+            released == 200
+            second.getString("sessionId") == "s1"
+            launches.get() == 1
+            resets == ["s1"]
+    }
+
+    def "leased sessions are not shared"() {
+        given:
+            startDaemon(Duration.ofHours(1))
+
+        when:
+            def first = lease()
+            def second = lease()
+
+        then:
+            first.getString("sessionId") != second.getString("sessionId")
+            launches.get() == 2
+            status().getInt("leased") == 2
+            status().getInt("idle") == 0
+    }
+
+    def "sessions leased for longer than the lease timeout are reclaimed"() {
+        given:
+            startDaemon(Duration.ofMillis(1))
+            def first = lease()
+            Thread.sleep(20)
+
+        when:
+            def second = lease()
+
+        then:
+            second.getString("sessionId") == first.getString("sessionId")
+            launches.get() == 1
+            resets == ["s1"]
+    }
+
+    def "discarded sessions are quit and unknown sessions are rejected"() {
+        given:
+            startDaemon(Duration.ofHours(1))
+            def sessionId = lease().getString("sessionId")
+
+        expect:
+            post("/discard", sessionId) == 200
+            requests.contains("DELETE /session/s1".toString())
+            post("/release", sessionId) == 404
+            status().getInt("leased") == 0
+            status().getInt("idle") == 0
+    }
+
+    def "a launched browser which is not a local RemoteWebDriver is quit"() {
+        given:
+            def webDriver = Mock(WebDriver)
+            daemon = new BrowserDaemon(
+                    { browser -> [getWebDriver: { webDriver }] as Driver },
+                    { } as BrowserResetStrategy,
+                    Duration.ofMinutes(1))
+        when:
+            daemon.lease(Browser.CHROME)
+        then:
+            thrown(IllegalStateException)
+            1 * webDriver.quit()
+    }
+}
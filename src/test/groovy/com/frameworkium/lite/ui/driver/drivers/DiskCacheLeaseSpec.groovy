@@ -0,0 +1,68 @@
+package com.frameworkium.lite.ui.driver.drivers
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class DiskCacheLeaseSpec extends Specification {
+
+    @TempDir
+    Path parent
+
+    def "browsers running at once lease different slots"() {
+        when:
+            def first = DiskCacheLease.acquire(parent)
+            def second = DiskCacheLease.acquire(parent)
+        then:
+            first.directory == parent.resolve("slot-0")
+            second.directory == parent.resolve("slot-1")
+            Files.isDirectory(first.directory)
+        cleanup:
+            first?.release()
+            second?.release()
+    }
+
+    def "a released slot, and its cache, is reused by the next browser"() {
+        given:
+            def first = DiskCacheLease.acquire(parent)
+            Files.writeString(first.directory.resolve("entry"), "cached")
+            first.release()
+        when:
+            def next = DiskCacheLease.acquire(parent)
+        then:
+            next.directory == parent.resolve("slot-0")
+            Files.readString(next.directory.resolve("entry")) == "cached"
+        cleanup:
+            next?.release()
+    }
+
+    def "slots locked by another process are skipped"() {
+        given: "slot-0 locked by another JVM"
+            def locker = parent.resolve("Locker.java")
+            Files.writeString(locker, """
+                    import java.nio.channels.FileChannel;
+                    import java.nio.file.*;
+                    public class Locker {
+                        public static void main(String[] args) throws Exception {
+                            var channel = FileChannel.open(Path.of(args[0]),
+                                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                            channel.lock();
+                            System.out.println("locked");
+                            Thread.sleep(60_000);
+                        }
+                    }""")
+            def java = ProcessHandle.current().info().command().get()
+            def other = new ProcessBuilder(java, locker.toString(), parent.resolve("slot-0.lock").toString())
+                    .start()
+            assert other.inputReader().readLine() == "locked"
+        when:
+            def lease = DiskCacheLease.acquire(parent)
+        then:
+            lease.directory == parent.resolve("slot-1")
+        cleanup:
+            lease?.release()
+            other?.destroyForcibly()?.waitFor()
+    }
+}
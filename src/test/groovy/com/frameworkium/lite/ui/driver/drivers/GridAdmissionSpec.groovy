@@ -0,0 +1,98 @@
+package com.frameworkium.lite.ui.driver.drivers
+
+import com.sun.net.httpserver.HttpServer
+import io.restassured.path.json.JsonPath
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class GridAdmissionSpec extends Specification {
+
+    static String status(String... slots) {
+        """{"value": {"ready": true, "nodes": [{"availability": "UP", "slots": [${slots.join(",")}]}]}}"""
+    }
+
+    static String slot(String browserName, boolean busy) {
+        """{"session": ${busy ? '{"sessionId": "1"}' : 'null'}, "stereotype": {"browserName": "$browserName"}}"""
+    }
+
+    HttpServer grid
+    List<String> statusResponses = []
+
+    def setup() {
+        grid = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        grid.createContext("/wd/hub/status") { exchange ->
+            def body = (statusResponses.size() > 1 ? statusResponses.remove(0) : statusResponses[0]).bytes
+            exchange.sendResponseHeaders(200, body.length)
+            exchange.responseBody.withCloseable { it.write(body) }
+        }
+        grid.start()
+    }
+
+    def cleanup() {
+        grid.stop(0)
+    }
+
+    def gridUrl() {
+        new URL("http://localhost:${grid.address.port}/wd/hub")
+    }
+
+    def "free slots are counted for the requested browser on available nodes"() {
+        given:
+            def json = JsonPath.from(status(slot("chrome", false), slot("chrome", true), slot("firefox", false)))
+        expect:
+            GridAdmission.countFreeSlots(json, "chrome").asInt == 1
+            GridAdmission.countFreeSlots(json, "").asInt == 2
+            GridAdmission.countFreeSlots(JsonPath.from('{"value": {"ready": true}}'), "chrome").isEmpty()
+    }
+
+    def "session is requested once the Grid has a free slot"() {
+        given:
+            statusResponses << status(slot("chrome", true)) << status(slot("chrome", false))
+            def sut = new GridAdmission(gridUrl(), 1, Duration.ofSeconds(10))
+        when:
+            def session = sut.createSession("chrome", { "session" })
+        then:
+            session == "session"
+            statusResponses.size() == 1
+            sut.getAdmissionWaits().getCount() == 1
+            sut.getSessionCreations().getCount() == 1
+    }
+
+    def "session is requested without waiting if the Grid status is unavailable"() {
+        given:
+            def sut = new GridAdmission(new URL("http://localhost:1/wd/hub"), 1, Duration.ofSeconds(10))
+        expect:
+            sut.createSession("chrome", { "session" }) == "session"
+    }
+
+    def "a slow Grid status poll does not block other requests reserving slots"() {
+        given:
+            def pollStarted = new CountDownLatch(1)
+            def respond = new CountDownLatch(1)
+            grid.createContext("/slow/status") { exchange ->
+                pollStarted.countDown()
+                respond.await(10, TimeUnit.SECONDS)
+                def body = status(slot("chrome", false), slot("chrome", false)).bytes
+                exchange.sendResponseHeaders(200, body.length)
+                exchange.responseBody.withCloseable { it.write(body) }
+            }
+            def sut = new GridAdmission(
+                    new URL("http://localhost:${grid.address.port}/slow"), 2, Duration.ofSeconds(10))
+            def slowRequest = CompletableFuture.supplyAsync { sut.createSession("chrome", { "slow" }) }
+            pollStarted.await(5, TimeUnit.SECONDS)
+
+        when:
+            def reserved = CompletableFuture.supplyAsync { sut.tryReserve(OptionalInt.of(2)) }
+
+        then:
+            reserved.get(2, TimeUnit.SECONDS)
+
+        cleanup:
+            respond.countDown()
+            slowRequest?.get(10, TimeUnit.SECONDS)
+    }
+}
@@ -0,0 +1,64 @@
+package com.frameworkium.lite.ui.driver.drivers
+
+import org.openqa.selenium.chrome.ChromeOptions
+import org.openqa.selenium.firefox.FirefoxOptions
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Path
+
+class PerformanceProfileSpec extends Specification {
+
+    @TempDir
+    Path cacheDir
+
+    def chromeArgs(ChromeOptions options) {
+        options.asMap()["goog:chromeOptions"]["args"]
+    }
+
+    def "disabled profile adds nothing"() {
+        expect:
+            chromeArgs(new PerformanceProfile(false, false, null).applyTo(new ChromeOptions())).isEmpty()
+    }
+
+    def "enabled profile adds Chromium flags and image blocking"() {
+        when:
+            def options = new PerformanceProfile(true, true, null).applyTo(new ChromeOptions())
+        then:
+            chromeArgs(options).containsAll([
+                    "--disable-extensions",
+                    "--window-size=1920,1080",
+                    "--blink-settings=imagesEnabled=false"])
+    }
+
+    def "each browser gets its own disk cache under the disk cache directory"() {
+        given:
+            def sut = new PerformanceProfile(false, false, cacheDir.toString())
+        when:
+            def chromeOptions = new ChromeOptions()
+            def chromeLease = sut.applyDiskCacheTo(chromeOptions).get()
+            def firefoxOptions = new FirefoxOptions()
+            def firefoxLease = sut.applyDiskCacheTo(firefoxOptions).get()
+        then:
+            chromeArgs(chromeOptions) == ["--disk-cache-dir=" + cacheDir.resolve("slot-0")]
+            firefoxOptions.asMap()["moz:firefoxOptions"]["prefs"]["browser.cache.disk.parent_directory"] ==
+                    cacheDir.resolve("slot-1").toString()
+        cleanup:
+            chromeLease?.release()
+            firefoxLease?.release()
+    }
+
+    def "no disk cache is leased unless a disk cache directory is set"() {
+        expect:
+            new PerformanceProfile(true, true, null).applyDiskCacheTo(new ChromeOptions()).isEmpty()
+    }
+
+    def "enabled profile adds Firefox preferences"() {
+        when:
+            def options = new PerformanceProfile(true, true, null).applyTo(new FirefoxOptions())
+            def prefs = options.asMap()["moz:firefoxOptions"]["prefs"]
+        then:
+            prefs["general.smoothScroll"] == false
+            prefs["permissions.default.image"] == 2
+    }
+}
@@ -0,0 +1,65 @@
+package com.frameworkium.lite.ui.driver.drivers
+
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.Path
+
+class ProfileTemplateSpec extends Specification {
+
+    @TempDir
+    Path template
+
+    def setup() {
+        Files.writeString(template.resolve("Preferences"), "{}")
+        Files.writeString(template.resolve("SingletonLock"), "")
+        Files.createDirectories(template.resolve("Default/Cache"))
+        Files.writeString(template.resolve("Default/Cache/entry"), "cached")
+    }
+
+    def "clone copies settings and cache entries and skips locks"() {
+        when:
+            def clone = new ProfileTemplate(template).cloneProfile()
+        then:
+            Files.readString(clone.resolve("Preferences")) == "{}"
+            !Files.isSameFile(clone.resolve("Preferences"), template.resolve("Preferences"))
+            Files.readString(clone.resolve("Default/Cache/entry")) == "cached"
+            !Files.isSameFile(clone.resolve("Default/Cache/entry"), template.resolve("Default/Cache/entry"))
+            !Files.exists(clone.resolve("SingletonLock"))
+        cleanup:
+            ProfileTemplate.deleteClone(clone)
+    }
+
+    def "cache entries written in place by one clone do not change the template or other clones"() {
+        given:
+            def sut = new ProfileTemplate(template)
+            def clone = sut.cloneProfile()
+            def otherClone = sut.cloneProfile()
+        when:
+            Files.writeString(clone.resolve("Default/Cache/entry"), "updated")
+        then:
+            Files.readString(template.resolve("Default/Cache/entry")) == "cached"
+            Files.readString(otherClone.resolve("Default/Cache/entry")) == "cached"
+        cleanup:
+            ProfileTemplate.deleteClone(clone)
+            ProfileTemplate.deleteClone(otherClone)
+    }
+
+    def "deleteClone removes the clone but not the template"() {
+        given:
+            def clone = new ProfileTemplate(template).cloneProfile()
+        when:
+            ProfileTemplate.deleteClone(clone)
+        then:
+            !Files.exists(clone)
+            Files.exists(template.resolve("Default/Cache/entry"))
+    }
+
+    def "template must be a directory"() {
+        when:
+            new ProfileTemplate(template.resolve("Preferences"))
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,80 @@
+package com.frameworkium.lite.ui.driver.drivers
+
+import com.sun.net.httpserver.HttpServer
+import spock.lang.Requires
+import spock.lang.Specification
+
+import java.time.Duration
+
+class SharedDriverServicesSpec extends Specification {
+
+    def cleanup() {
+        SharedDriverServices.stopAll()
+    }
+
+    @Requires({ new File("/bin/sleep").canExecute() })
+    def "stopping the service when a session quits is a no-op, only stopShared stops it"() {
+        given: "a driver service, faked by a stub status endpoint and a long sleep process"
+            def status = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+            status.createContext("/status") { exchange ->
+                def body = '{"value": {"ready": true}}'.bytes
+                exchange.sendResponseHeaders(200, body.length)
+                exchange.responseBody.withCloseable { it.write(body) }
+            }
+            status.start()
+            def service = new SharedDriverServices.SharedChromeDriverService(
+                    new File("/bin/sleep"), status.address.port, Duration.ofSeconds(10), ["60"], [:])
+            service.start()
+
+        when:
+            service.stop()
+
+        then:
+            service.running
+
+        when:
+            service.stopShared()
+
+        then:
+            !service.running
+
+        cleanup:
+            status.stop(0)
+    }
+
+    def "stopAll stops each service exactly once and is safe to call twice"() {
+        given:
+            def chrome = Mock(SharedDriverServices.SharedService)
+            def edge = Mock(SharedDriverServices.SharedService)
+            SharedDriverServices.shared(SharedDriverServices.CHROME, { chrome })
+            SharedDriverServices.shared(SharedDriverServices.EDGE, { edge })
+
+        when:
+            SharedDriverServices.stopAll()
+            SharedDriverServices.stopAll()
+
+        then:
+            1 * chrome.stopShared()
+            1 * edge.stopShared()
+    }
+
+    def "Chrome and Edge get separate services, each started once until stopped"() {
+        given:
+            def chrome = Mock(SharedDriverServices.SharedService)
+            def edge = Mock(SharedDriverServices.SharedService)
+            def starts = 0
+
+        expect:
+            SharedDriverServices.shared(SharedDriverServices.CHROME, { starts++; chrome }).is(chrome)
+            SharedDriverServices.shared(SharedDriverServices.EDGE, { starts++; edge }).is(edge)
+            SharedDriverServices.shared(SharedDriverServices.CHROME, { starts++; edge }).is(chrome)
+            starts == 2
+
+        when:
+            SharedDriverServices.stopAll()
+
+        then:
+            SharedDriverServices.shared(SharedDriverServices.CHROME, { starts++; edge }).is(edge)
+            starts == 3
+    }
+}
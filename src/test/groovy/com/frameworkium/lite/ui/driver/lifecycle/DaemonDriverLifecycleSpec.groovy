@@ -0,0 +1,84 @@
+package com.frameworkium.lite.ui.driver.lifecycle
+
+import com.frameworkium.lite.ui.driver.DriverSetup
+import com.frameworkium.lite.ui.driver.DriverUnwrapper
+import com.sun.net.httpserver.HttpServer
+import org.openqa.selenium.remote.RemoteWebDriver
+import spock.lang.Specification
+
+class DaemonDriverLifecycleSpec extends Specification {
+
+    HttpServer driverService
+    HttpServer daemon
+    List<String> driverRequests = Collections.synchronizedList([])
+    List<String> daemonRequests = Collections.synchronizedList([])
+
+    static void respond(exchange, String body) {
+        def bytes = body.bytes
+        exchange.responseHeaders.set("Content-Type", "application/json")
+        exchange.sendResponseHeaders(200, bytes.length)
+        exchange.responseBody.withCloseable { it.write(bytes) }
+    }
+
+    def setup() {
+        driverService = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        driverService.createContext("/") { exchange ->
+            driverRequests << "${exchange.requestMethod} ${exchange.requestURI.path}".toString()
+            respond(exchange, '{"value": null}')
+        }
+        driverService.start()
+
+        daemon = HttpServer.create(new InetSocketAddress("localhost", 0), 0)
+        daemon.createContext("/") { exchange ->
+            daemonRequests << "${exchange.requestURI.path} ${exchange.requestURI.query}".toString()
+            respond(exchange, exchange.requestURI.path == "/lease"
+                    ? """{"sessionId": "abc123", "serverUrl": "http://localhost:${driverService.address.port}", "capabilities": {"browserName": "chrome"}}"""
+                    : "{}")
+        }
+        daemon.start()
+    }
+
+    def cleanup() {
+        daemon.stop(0)
+        driverService.stop(0)
+    }
+
+    def sut() {
+        new DaemonDriverLifecycle("http://localhost:${daemon.address.port}", DriverSetup.Browser.CHROME)
+    }
+
+    def "leases a browser and releases it back when the test ends"() {
+        given:
+            def sut = sut()
+
+        when:
+            sut.initBrowserBeforeTest()
+            def sessionId = ((RemoteWebDriver) DriverUnwrapper.unwrap(sut.webDriver)).sessionId.toString()
+
+        then:
+            sessionId == "abc123"
+            daemonRequests == ["/lease browser=CHROME"]
+            !driverRequests.contains("POST /session")
+
+        when:
+            sut.tearDownDriver()
+
+        then:
+            daemonRequests == ["/lease browser=CHROME", "/release sessionId=abc123"]
+            !driverRequests.contains("DELETE /session/abc123")
+            sut.webDriver == null
+    }
+
+    def "reinitialising discards the browser instead of releasing it"() {
+        given:
+            def sut = sut()
+            sut.initBrowserBeforeTest()
+
+        when:
+            sut.reinitialiseCurrentDriver()
+
+        then:
+            daemonRequests == ["/lease browser=CHROME", "/discard sessionId=abc123"]
+            sut.webDriver == null
+    }
+}
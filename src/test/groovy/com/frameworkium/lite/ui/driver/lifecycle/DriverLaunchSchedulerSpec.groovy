@@ -0,0 +1,46 @@
+package com.frameworkium.lite.ui.driver.lifecycle
+
+import com.frameworkium.lite.ui.driver.Driver
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicInteger
+
+class DriverLaunchSchedulerSpec extends Specification {
+
+    def "no more than concurrency browsers launch at once"() {
+        given:
+            def sut = DriverLaunchScheduler.withConcurrency(2)
+            def launching = new AtomicInteger()
+            def maxLaunching = new AtomicInteger()
+            def driverSupplier = {
+                maxLaunching.accumulateAndGet(launching.incrementAndGet(), Math::max)
+                sleep(50)
+                launching.decrementAndGet()
+                Mock(Driver)
+            }
+        when:
+            (1..6).collect { sut.launch(driverSupplier) }*.join()
+        then:
+            maxLaunching.get() == 2
+            sut.getLaunchTimings().getCount() == 6
+    }
+
+    def "launches beyond the burst are rate limited"() {
+        given:
+            def sut = new DriverLaunchScheduler(4, 600, 2)
+            def start = System.nanoTime()
+        when: "the third launch waits for a token, added every 100ms"
+            (1..3).collect { sut.launch({ Mock(Driver) }) }*.join()
+        then:
+            (System.nanoTime() - start) / 1_000_000 >= 90
+    }
+
+    def "launchAndWait rethrows the supplier's exception"() {
+        given:
+            def sut = DriverLaunchScheduler.withConcurrency(1)
+        when:
+            sut.launchAndWait({ throw new IllegalStateException("no browser") })
+        then:
+            thrown IllegalStateException
+    }
+}
@@ -0,0 +1,34 @@
+package com.frameworkium.lite.ui.driver.lifecycle
+
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser
+import spock.lang.Specification
+
+class DriverPoolConfigSpec extends Specification {
+
+    def cleanup() {
+        System.clearProperty("pool.firefox.maxTotal")
+        System.clearProperty("pool.firefox.validateOnBorrow")
+    }
+
+    def "pool properties set for one browser type only size that browser's pool"() {
+        given:
+            System.setProperty("pool.firefox.maxTotal", "3")
+            System.setProperty("pool.firefox.validateOnBorrow", "true")
+        when:
+            def firefox = DriverPoolConfig.fromProperties(Browser.FIREFOX)
+            def chrome = DriverPoolConfig.fromProperties(Browser.CHROME)
+            def global = DriverPoolConfig.fromProperties()
+        then:
+            firefox.maxTotal == 3
+            firefox.validateOnBorrow
+            chrome.maxTotal == global.maxTotal
+            chrome.validateOnBorrow == global.validateOnBorrow
+            firefox.borrowTimeout == global.borrowTimeout
+    }
+
+    def "a browser type's pool uses the pool properties for all browsers if unset"() {
+        expect:
+            DriverPoolConfig.fromProperties(Browser.EDGE).toString() ==
+                    DriverPoolConfig.fromProperties().toString()
+    }
+}
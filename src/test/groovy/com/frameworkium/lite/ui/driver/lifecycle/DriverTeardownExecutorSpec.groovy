@@ -0,0 +1,43 @@
+package com.frameworkium.lite.ui.driver.lifecycle
+
+import org.openqa.selenium.WebDriver
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+
+class DriverTeardownExecutorSpec extends Specification {
+
+    def "synchronous executor quits on the calling thread and ignores failures"() {
+        given:
+            def webDriver = Mock(WebDriver)
+            def sut = DriverTeardownExecutor.synchronous()
+        when:
+            sut.quit(webDriver)
+        then:
+            1 * webDriver.quit() >> { throw new Exception("some error") }
+            noExceptionThrown()
+    }
+
+    def "quit blocks once maxPending browsers are waiting to quit"() {
+        given:
+            def quitReleased = new CountDownLatch(1)
+            def slowWebDriver = Stub(WebDriver) {
+                quit() >> { quitReleased.await() }
+            }
+            def sut = new DriverTeardownExecutor(1, 1)
+            sut.quit(slowWebDriver)
+        when:
+            def blockedCaller = Thread.start { sut.quit(slowWebDriver) }
+            blockedCaller.join(200)
+        then:
+            blockedCaller.isAlive()
+            !sut.drain(Duration.ofMillis(50))
+
+        when:
+            quitReleased.countDown()
+            blockedCaller.join()
+        then:
+            sut.drain(Duration.ofSeconds(5))
+    }
+}
@@ -0,0 +1,59 @@
+package com.frameworkium.lite.ui.driver.lifecycle
+
+import org.openqa.selenium.JavascriptExecutor
+import org.openqa.selenium.NoAlertPresentException
+import org.openqa.selenium.WebDriver
+import org.openqa.selenium.chromium.HasCdp
+import spock.lang.Specification
+
+class FullStateResetSpec extends Specification {
+
+    def targetLocator = Mock(WebDriver.TargetLocator) {
+        alert() >> { throw new NoAlertPresentException() }
+    }
+    def options = Mock(WebDriver.Options)
+
+    def "closes extra windows, clears storage with JavaScript and navigates to about:blank"() {
+        given:
+            def webDriver = Mock(JavascriptWebDriver) {
+                switchTo() >> targetLocator
+                manage() >> options
+                getWindowHandles() >> (["main", "popup"] as LinkedHashSet)
+            }
+            def popup = Mock(WebDriver)
+        when:
+            new FullStateReset(false).reset(webDriver)
+        then:
+            1 * targetLocator.window("popup") >> popup
+            1 * popup.close()
+        then:
+            1 * targetLocator.window("main")
+        then:
+            1 * webDriver.executeAsyncScript(FullStateReset.CLEAR_STORAGE_SCRIPT)
+            1 * options.deleteAllCookies()
+        then:
+            1 * webDriver.get("about:blank")
+    }
+
+    def "uses CDP to clear the current origin and all cookies on Chromium"() {
+        given:
+            def webDriver = Mock(ChromiumWebDriver) {
+                switchTo() >> targetLocator
+                getWindowHandles() >> (["main"] as Set)
+                executeScript(_ as String) >> "https://example.com"
+            }
+        when:
+            new FullStateReset(true).reset(webDriver)
+        then:
+            1 * webDriver.executeCdpCommand("Storage.clearDataForOrigin", [
+                    origin: "https://example.com", storageTypes: "all"])
+            1 * webDriver.executeCdpCommand("Network.clearBrowserCookies", [:])
+            1 * webDriver.executeCdpCommand("Network.clearBrowserCache", [:])
+            0 * webDriver.executeAsyncScript(*_)
+            1 * webDriver.get("about:blank")
+    }
+
+    interface JavascriptWebDriver extends WebDriver, JavascriptExecutor {}
+
+    interface ChromiumWebDriver extends JavascriptWebDriver, HasCdp {}
+}
@@ -0,0 +1,116 @@
+package com.frameworkium.lite.ui.driver.lifecycle
+
+import com.frameworkium.lite.ui.driver.DriverSetup.Browser
+import org.openqa.selenium.WebDriver
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class KeyedDriverLifecycleSpec extends Specification {
+
+    WebDriver chromeWebDriver = Mock(WebDriver)
+    WebDriver firefoxWebDriver = Mock(WebDriver)
+    def chromeLifecycle = Mock(DriverLifecycle) {
+        getWebDriver() >> chromeWebDriver
+    }
+    def firefoxLifecycle = Mock(DriverLifecycle) {
+        getWebDriver() >> firefoxWebDriver
+    }
+    def lifecycles = [(Browser.CHROME): chromeLifecycle, (Browser.FIREFOX): firefoxLifecycle]
+
+    def sut = new KeyedDriverLifecycle({ lifecycles[it] }, Browser.CHROME)
+
+    def "initDriverPool only initialises the default browser's lifecycle"() {
+        when:
+            sut.initDriverPool()
+        then:
+            1 * chromeLifecycle.initDriverPool()
+            0 * firefoxLifecycle.initDriverPool()
+    }
+
+    def "requesting another browser lazily initialises its lifecycle once"() {
+        given:
+            sut.initDriverPool()
+        when:
+            sut.initBrowserBeforeTest(Browser.FIREFOX)
+            sut.tearDownDriver()
+            sut.initBrowserBeforeTest(Browser.FIREFOX)
+        then:
+            1 * firefoxLifecycle.initDriverPool()
+            2 * firefoxLifecycle.initBrowserBeforeTest()
+            1 * firefoxLifecycle.tearDownDriver()
+            sut.getWebDriver() == firefoxWebDriver
+    }
+
+    def "tests without a browser type use the default browser"() {
+        when:
+            sut.initBrowserBeforeTest()
+        then:
+            1 * chromeLifecycle.initBrowserBeforeTest()
+            sut.getWebDriver() == chromeWebDriver
+    }
+
+    def "tearDownDriverPool tears down every browser's lifecycle"() {
+        given:
+            sut.initDriverPool()
+            sut.initBrowserBeforeTest(Browser.FIREFOX)
+            sut.tearDownDriver()
+        when:
+            sut.tearDownDriverPool()
+        then:
+            1 * chromeLifecycle.tearDownDriverPool()
+            1 * firefoxLifecycle.tearDownDriverPool()
+            sut.getWebDriver() == null
+    }
+
+    def "initDriverPool twice throws exception"() {
+        given:
+            sut.initDriverPool()
+        when:
+            sut.initDriverPool()
+        then:
+            thrown(IllegalStateException)
+    }
+
+    def "a lifecycle which fails to initialise is not initialised again"() {
+        given:
+            def failure = new IllegalStateException("no browser")
+        when:
+            sut.initBrowserBeforeTest(Browser.FIREFOX)
+        then:
+            1 * firefoxLifecycle.initDriverPool() >> { throw failure }
+            thrown(IllegalStateException)
+        when:
+            sut.initBrowserBeforeTest(Browser.FIREFOX)
+        then:
+            0 * firefoxLifecycle.initDriverPool()
+            def e = thrown(IllegalStateException)
+            e.cause == failure
+    }
+
+    def "a slow lifecycle initialisation does not block other browser types"() {
+        given:
+            def launching = new CountDownLatch(1)
+            def launched = new CountDownLatch(1)
+            // not a Mock, whose interactions run one at a time
+            def slowLifecycle = [initDriverPool: {
+                launching.countDown()
+                launched.await(10, TimeUnit.SECONDS)
+            }] as DriverLifecycle
+            def fastLifecycle = [initDriverPool: {}, initBrowserBeforeTest: {}] as DriverLifecycle
+            def slowLifecycles = [(Browser.CHROME): slowLifecycle, (Browser.FIREFOX): fastLifecycle]
+            def slowSut = new KeyedDriverLifecycle({ slowLifecycles[it] }, Browser.CHROME)
+            def slowInit = CompletableFuture.runAsync { slowSut.initDriverPool() }
+            launching.await(5, TimeUnit.SECONDS)
+        when:
+            CompletableFuture.runAsync { slowSut.initBrowserBeforeTest(Browser.FIREFOX) }
+                    .get(2, TimeUnit.SECONDS)
+        then:
+            noExceptionThrown()
+        cleanup:
+            launched.countDown()
+            slowInit?.get(10, TimeUnit.SECONDS)
+    }
+}
@@ -2,8 +2,14 @@ package com.frameworkium.lite.ui.driver.lifecycle
 
 import com.frameworkium.lite.ui.driver.Driver
 import org.openqa.selenium.WebDriver
+import org.openqa.selenium.WebDriverException
 import spock.lang.Specification
 
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+
 class MultiUseDriverLifecycleSpec extends Specification {
 
     WebDriver EFWebDriverMock = Mock(WebDriver)
@@ -77,6 +83,29 @@ class MultiUseDriverLifecycleSpec extends Specification {
             noExceptionThrown()
     }
 
+    def "browsers which launched are quit if another fails to launch"() {
+        given:
+            def launches = new AtomicInteger()
+            def sut = new MultiUseDriverLifecycle(
+                    {
+                        if (launches.incrementAndGet() == 2) {
+                            throw new WebDriverException("failed to launch")
+                        }
+                        driverMock
+                    },
+                    DriverPoolConfig.fixedSize(3),
+                    DriverTeardownExecutor.synchronous())
+        when:
+            sut.initDriverPool()
+        then:
+            thrown(WebDriverException)
+            2 * EFWebDriverMock.quit()
+        when:
+            sut.initDriverPool()
+        then: "the pool can be initialised again"
+            noExceptionThrown()
+    }
+
     def "reinit current driver quits existing and returns new"() {
         given:
             def sut = new MultiUseDriverLifecycle(driverSupplier, 1)
@@ -89,4 +118,193 @@ class MultiUseDriverLifecycleSpec extends Specification {
         then:
             sut.getWebDriver() == EFWebDriverMock
     }
+
+    def "pool grows on demand up to maxTotal then times out waiting for a browser"() {
+        given:
+            def created = 0
+            def sut = new MultiUseDriverLifecycle(
+                    { created++; driverMock },
+                    new DriverPoolConfig(1, 2, Duration.ofMillis(50), Duration.ZERO),
+                    DriverTeardownExecutor.synchronous())
+        when:
+            sut.initDriverPool()
+            sut.initBrowserBeforeTest()
+        then:
+            created == 1
+
+        when: "another worker borrows while the only browser is in use"
+            sut.initBrowserBeforeTest()
+        then:
+            created == 2
+
+        when: "a third worker borrows while maxTotal browsers are in use"
+            sut.initBrowserBeforeTest()
+        then:
+            thrown NoSuchElementException
+            created == 2
+    }
+
+    def "browser returned by another worker is borrowed instead of creating a new one"() {
+        given:
+            def created = 0
+            EFWebDriverMock.manage() >> Stub(WebDriver.Options)
+            def sut = new MultiUseDriverLifecycle(
+                    { created++; driverMock },
+                    new DriverPoolConfig(1, 1, Duration.ofSeconds(5), Duration.ZERO),
+                    DriverTeardownExecutor.synchronous())
+            sut.initDriverPool()
+            sut.initBrowserBeforeTest()
+        when:
+            def worker = Thread.start { sut.initBrowserBeforeTest() }
+            sleep(100)
+            sut.tearDownDriver()
+            worker.join()
+        then:
+            created == 1
+    }
+
+    def "idle browsers are evicted down to minIdle"() {
+        given:
+            EFWebDriverMock.manage() >> Stub(WebDriver.Options)
+            def sut = new MultiUseDriverLifecycle(
+                    driverSupplier,
+                    new DriverPoolConfig(1, 3, Duration.ofSeconds(1), Duration.ofMillis(1)),
+                    DriverTeardownExecutor.synchronous())
+            sut.initDriverPool()
+            sut.initBrowserBeforeTest()
+            Thread.start {
+                sut.initBrowserBeforeTest()
+                Thread.start {
+                    sut.initBrowserBeforeTest()
+                    sut.tearDownDriver()
+                }.join()
+                sut.tearDownDriver()
+            }.join()
+            sut.tearDownDriver()
+            sleep(10)
+        when:
+            sut.evictIdleDrivers()
+        then:
+            2 * EFWebDriverMock.quit()
+    }
+
+    def "browser failing validation on borrow is quit and replaced"() {
+        given:
+            WebDriver deadWebDriver = Mock(WebDriver) {
+                getWindowHandle() >> { throw new WebDriverException("session deleted") }
+            }
+            def drivers = [Mock(Driver) { getWebDriver() >> deadWebDriver }, driverMock]
+            def sut = new MultiUseDriverLifecycle(
+                    { drivers.remove(0) },
+                    new DriverPoolConfig(1, 1, Duration.ofSeconds(1), Duration.ZERO)
+                            .withValidation(true, Duration.ZERO, Duration.ofSeconds(1)),
+                    DriverTeardownExecutor.synchronous())
+            sut.initDriverPool()
+        when:
+            sut.initBrowserBeforeTest()
+        then:
+            1 * deadWebDriver.quit()
+            sut.getWebDriver() == EFWebDriverMock
+    }
+
+    def "idle browsers failing background validation are replaced"() {
+        given:
+            WebDriver deadWebDriver = Mock(WebDriver) {
+                getWindowHandle() >> { throw new WebDriverException("session deleted") }
+            }
+            def drivers = [Mock(Driver) { getWebDriver() >> deadWebDriver }, driverMock]
+            def sut = new MultiUseDriverLifecycle(
+                    { drivers.remove(0) },
+                    new DriverPoolConfig(1, 1, Duration.ofSeconds(1), Duration.ZERO)
+                            .withValidation(false, Duration.ofHours(1), Duration.ofSeconds(1)),
+                    DriverTeardownExecutor.synchronous())
+            sut.initDriverPool()
+        when:
+            sut.validateIdleDrivers()
+            sut.initBrowserBeforeTest()
+        then:
+            1 * deadWebDriver.quit()
+            sut.getWebDriver() == EFWebDriverMock
+    }
+
+    def "browser is recycled in the background after maxTestsPerBrowser tests"() {
+        given:
+            def created = new AtomicInteger()
+            EFWebDriverMock.manage() >> Stub(WebDriver.Options)
+            def sut = new MultiUseDriverLifecycle(
+                    { created.incrementAndGet(); driverMock },
+                    new DriverPoolConfig(1, 1, Duration.ofSeconds(5), Duration.ZERO)
+                            .withRecycling(2, Duration.ZERO, 0),
+                    DriverTeardownExecutor.synchronous())
+            sut.initDriverPool()
+        when:
+            2.times {
+                sut.initBrowserBeforeTest()
+                sut.tearDownDriver()
+            }
+            sut.initBrowserBeforeTest()
+        then:
+            1 * EFWebDriverMock.quit()
+            created.get() == 2
+            sut.getWebDriver() == EFWebDriverMock
+    }
+
+    def "a replacement launched after the pool is torn down is quit"() {
+        given:
+            EFWebDriverMock.manage() >> Stub(WebDriver.Options)
+            def replacementWebDriver = Mock(WebDriver)
+            def replacementLaunch = new CompletableFuture<Driver>()
+            def launches = 0
+            def launchScheduler = new DriverLaunchScheduler(1, 0, 1) {
+                @Override
+                CompletableFuture<Driver> launch(Supplier<Driver> supplier) {
+                    launches++ == 0 ? CompletableFuture.completedFuture(driverMock) : replacementLaunch
+                }
+            }
+            def sut = new MultiUseDriverLifecycle(
+                    driverSupplier,
+                    new DriverPoolConfig(1, 1, Duration.ofSeconds(5), Duration.ZERO)
+                            .withRecycling(1, Duration.ZERO, 0),
+                    DriverTeardownExecutor.synchronous(),
+                    launchScheduler)
+            sut.initDriverPool()
+            sut.initBrowserBeforeTest()
+            sut.tearDownDriver()
+        and: "the pool is torn down without waiting for the replacement"
+            Thread.start {
+                Thread.currentThread().interrupt()
+                sut.tearDownDriverPool()
+            }.join()
+        when:
+            replacementLaunch.complete(Mock(Driver) { getWebDriver() >> replacementWebDriver })
+        then:
+            1 * replacementWebDriver.quit()
+    }
+
+    def "idle browser which last ran the same affinity is preferred over the most recent"() {
+        given:
+            def webDrivers = (1..2).collect {
+                Mock(WebDriver) { manage() >> Stub(WebDriver.Options) }
+            }
+            def drivers = webDrivers.collect { webDriver -> Mock(Driver) { getWebDriver() >> webDriver } }
+            def created = 0
+            def sut = new MultiUseDriverLifecycle(
+                    { drivers[created++] },
+                    new DriverPoolConfig(0, 2, Duration.ofSeconds(5), Duration.ZERO),
+                    DriverTeardownExecutor.synchronous())
+            sut.initDriverPool()
+            sut.initBrowserBeforeTest("AppATest")
+            Thread.start { sut.initBrowserBeforeTest("AppBTest"); sut.tearDownDriver() }.join()
+            sut.tearDownDriver()
+        when: "the AppATest browser was returned most recently"
+            sut.initBrowserBeforeTest("AppBTest")
+        then:
+            sut.getWebDriver() == webDrivers[1]
+
+        when: "there is no match, the most recently used is borrowed"
+            sut.tearDownDriver()
+            sut.initBrowserBeforeTest("AppCTest")
+        then:
+            sut.getWebDriver() == webDrivers[1]
+    }
 }
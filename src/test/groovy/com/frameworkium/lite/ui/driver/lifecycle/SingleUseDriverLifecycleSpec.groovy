@@ -5,6 +5,8 @@ import org.openqa.selenium.WebDriver
 import org.openqa.selenium.firefox.FirefoxDriver
 import spock.lang.Specification
 
+import java.util.concurrent.atomic.AtomicInteger
+
 class SingleUseDriverLifecycleSpec extends Specification {
 
     WebDriver EFWebDriverMock = Mock(WebDriver)
@@ -61,4 +63,57 @@ class SingleUseDriverLifecycleSpec extends Specification {
         then:
             sut.getWebDriver() == EFWebDriverMock
     }
+
+    def "pre-warmed browsers are handed out, replaced and quit with the pool"() {
+        given:
+            def created = new AtomicInteger()
+            def prewarmingSut = new SingleUseDriverLifecycle({
+                created.incrementAndGet()
+                driverMock
+            }, 2, DriverTeardownExecutor.synchronous())
+        when:
+            prewarmingSut.initDriverPool()
+            prewarmingSut.initBrowserBeforeTest()
+        then:
+            prewarmingSut.getWebDriver() == EFWebDriverMock
+
+        when:
+            prewarmingSut.tearDownDriver()
+            prewarmingSut.tearDownDriverPool()
+        then: "two pre-warmed, one replacement, and all three quit"
+            created.get() == 3
+            3 * EFWebDriverMock.quit()
+    }
+
+    def "falls back to launching a browser if pre-warming fails"() {
+        given:
+            def attempts = new AtomicInteger()
+            def prewarmingSut = new SingleUseDriverLifecycle({
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("launch failed")
+                }
+                driverMock
+            }, 1, DriverTeardownExecutor.synchronous())
+            prewarmingSut.initDriverPool()
+        when:
+            prewarmingSut.initBrowserBeforeTest()
+        then:
+            prewarmingSut.getWebDriver() == EFWebDriverMock
+        cleanup:
+            prewarmingSut.tearDownDriverPool()
+    }
+
+    def "browsers quit asynchronously have all quit once the pool is torn down"() {
+        given:
+            def asyncSut = new SingleUseDriverLifecycle(
+                    driverSupplier, 0, new DriverTeardownExecutor(2, 2))
+        when:
+            3.times {
+                asyncSut.initBrowserBeforeTest()
+                asyncSut.tearDownDriver()
+            }
+            asyncSut.tearDownDriverPool()
+        then:
+            3 * EFWebDriverMock.quit()
+    }
 }
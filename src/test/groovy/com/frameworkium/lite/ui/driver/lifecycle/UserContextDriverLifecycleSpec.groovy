@@ -0,0 +1,144 @@
+package com.frameworkium.lite.ui.driver.lifecycle
+
+import com.frameworkium.lite.ui.context.TestContext
+import com.frameworkium.lite.ui.driver.Driver
+import org.openqa.selenium.By
+import org.openqa.selenium.OutputType
+import org.openqa.selenium.TakesScreenshot
+import org.openqa.selenium.WebDriver
+import org.openqa.selenium.WebElement
+import org.openqa.selenium.support.events.EventFiringDecorator
+import org.openqa.selenium.support.events.WebDriverListener
+import spock.lang.Specification
+
+class UserContextDriverLifecycleSpec extends Specification {
+
+    interface ScreenshotWebDriver extends WebDriver, TakesScreenshot {}
+
+    def targetLocator = Mock(WebDriver.TargetLocator)
+    def navigation = Mock(WebDriver.Navigation)
+    def browser = Mock(ScreenshotWebDriver) {
+        switchTo() >> targetLocator
+        navigate() >> navigation
+        getWindowHandle() >> "main"
+    }
+    def bidi = Mock(UserContextDriverLifecycle.BiDiContexts) {
+        createUserContext() >>> ["uc1", "uc2"]
+        createWindow("uc1") >> "w1"
+        createWindow("uc2") >> "w2"
+    }
+    def listener = Mock(WebDriverListener)
+    def driver = Mock(Driver) {
+        getWebDriver() >> browser
+        decorate(_) >> { WebDriver webDriver -> new EventFiringDecorator<>(listener).decorate(webDriver) }
+    }
+    def sut = new UserContextDriverLifecycle({ driver }, { bidi })
+
+    def first = new TestContext()
+    def second = new TestContext()
+
+    def setup() {
+        sut.initDriverPool()
+        first.run { sut.initBrowserBeforeTest() }
+        second.run { sut.initBrowserBeforeTest() }
+    }
+
+    def "commands switch to the test's window only when another test used the browser"() {
+        when:
+            first.run { sut.webDriver.title }
+            first.run { sut.webDriver.currentUrl }
+            second.run { sut.webDriver.title }
+            first.run { sut.webDriver.title }
+
+        then:
+            2 * targetLocator.window("w1")
+            1 * targetLocator.window("w2")
+            3 * browser.getTitle()
+            1 * browser.getCurrentUrl()
+            sut.lockWaits.count == 4
+    }
+
+    def "page loads and screenshots are sent over BiDi to the test's window without the lock"() {
+        when:
+            def screenshot = second.call {
+                sut.webDriver.get("http://example.com/a")
+                sut.webDriver.navigate().to("http://example.com/b")
+                sut.webDriver.getScreenshotAs(OutputType.BASE64)
+            }
+
+        then:
+            1 * bidi.navigate("w2", "http://example.com/a")
+            1 * bidi.navigate("w2", "http://example.com/b")
+            1 * bidi.captureScreenshot("w2") >> "iVBORw0KGgo="
+            0 * targetLocator.window(_)
+            0 * browser.get(_)
+            0 * navigation.to(_)
+            screenshot == "iVBORw0KGgo="
+            sut.lockWaits.count == 0
+    }
+
+    def "listeners see page loads sent over BiDi"() {
+        when:
+            first.run { sut.webDriver.get("http://example.com/a") }
+
+        then:
+            1 * listener.beforeGet(_, "http://example.com/a")
+        then:
+            1 * bidi.navigate("w1", "http://example.com/a")
+        then:
+            1 * listener.afterGet(_, "http://example.com/a")
+    }
+
+    def "element screenshots are taken by WebDriver in the test's window"() {
+        given:
+            def element = Mock(WebElement)
+            browser.findElement(By.id("logo")) >> element
+
+        when:
+            def screenshot = first.call {
+                sut.webDriver.findElement(By.id("logo")).getScreenshotAs(OutputType.BASE64)
+            }
+
+        then:
+            1 * element.getScreenshotAs(OutputType.BASE64) >> "element"
+            0 * bidi.captureScreenshot(_)
+            screenshot == "element"
+            sut.lockWaits.count == 2
+    }
+
+    def "a user context is removed if its window cannot be created"() {
+        given:
+            def failing = Mock(UserContextDriverLifecycle.BiDiContexts) {
+                createUserContext() >> "uc3"
+                createWindow("uc3") >> { throw new IllegalStateException("no window") }
+            }
+            def failingSut = new UserContextDriverLifecycle({ driver }, { failing })
+
+        when:
+            new TestContext().run { failingSut.initBrowserBeforeTest() }
+
+        then:
+            thrown(IllegalStateException)
+            1 * failing.removeUserContext("uc3")
+    }
+
+    def "tearing down removes only the test's user context"() {
+        when:
+            first.run { sut.tearDownDriver() }
+
+        then:
+            1 * bidi.removeUserContext("uc1")
+            0 * bidi.removeUserContext("uc2")
+            first.call { sut.webDriver } == null
+            second.call { sut.webDriver } != null
+    }
+
+    def "quitting the shared browser quits it once"() {
+        when:
+            sut.tearDownDriverPool()
+            sut.tearDownDriverPool()
+
+        then:
+            1 * browser.quit()
+    }
+}